@@ -0,0 +1,19 @@
+# The binding engine finds the annotated members using reflection, and finds
+# the generated accessor of a class by appending $$MetadataAccessor to the
+# name of the class.
+-keepclassmembers class * {
+    @com.onehilltech.metadata.MetadataProperty <fields>;
+    @com.onehilltech.metadata.MetadataMethod <methods>;
+}
+
+-keepclasseswithmembernames class * {
+    @com.onehilltech.metadata.MetadataProperty <fields>;
+}
+
+-keepclasseswithmembernames class * {
+    @com.onehilltech.metadata.MetadataMethod <methods>;
+}
+
+-keep class * implements com.onehilltech.metadata.MetadataAccessor {
+    <init>();
+}
@@ -0,0 +1,85 @@
+/**
+ * Copyright (C) 2013, James H. Hill
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.onehilltech.metadata.analysis;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Configuration of the metadataAnalysis extension.
+ *
+ * <pre>
+ * metadataAnalysis {
+ *   prune = true
+ *   allow 'com.vendor.*'
+ *   keep 'com.vendor.license'
+ * }
+ * </pre>
+ */
+public class MetadataAnalysisExtension
+{
+  /// Remove the unused entries that match the allow list.
+  private boolean prune_ = false;
+
+  private final List <String> allowList_ = new ArrayList<> ();
+
+  private final List <String> keepList_ = new ArrayList<> ();
+
+  public boolean getPrune ()
+  {
+    return this.prune_;
+  }
+
+  public void setPrune (boolean prune)
+  {
+    this.prune_ = prune;
+  }
+
+  /**
+   * Get the patterns of unused keys that can be pruned.
+   */
+  public List <String> getAllowList ()
+  {
+    return this.allowList_;
+  }
+
+  /**
+   * Get the patterns of keys that are always considered used.
+   */
+  public List <String> getKeepList ()
+  {
+    return this.keepList_;
+  }
+
+  /**
+   * Add patterns to the allow list.
+   */
+  public void allow (String... patterns)
+  {
+    this.allowList_.addAll (Arrays.asList (patterns));
+  }
+
+  /**
+   * Add patterns to the keep list.
+   */
+  public void keep (String... patterns)
+  {
+    this.keepList_.addAll (Arrays.asList (patterns));
+  }
+}
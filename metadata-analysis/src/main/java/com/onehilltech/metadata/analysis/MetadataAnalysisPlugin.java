@@ -0,0 +1,119 @@
+/**
+ * Copyright (C) 2013, James H. Hill
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.onehilltech.metadata.analysis;
+
+import com.android.build.gradle.AppExtension;
+import com.android.build.gradle.api.ApplicationVariant;
+import com.android.build.gradle.api.BaseVariantOutput;
+import com.android.builder.model.SourceProvider;
+
+import org.gradle.api.Action;
+import org.gradle.api.Plugin;
+import org.gradle.api.Project;
+import org.gradle.api.Task;
+import org.gradle.api.file.DirectoryProperty;
+import org.gradle.api.plugins.AppliedPlugin;
+
+/**
+ * Gradle plugin that analyzes the meta-data in the merged manifest of each
+ * application variant. The plugin adds an analyze<Output>Metadata task for
+ * each variant output that runs after the manifest is merged, and before the
+ * resources are processed. The task writes a report of the used and unused
+ * entries, with their estimated size, to build/reports/metadata. When pruning
+ * is enabled, unused entries that match the allow list are removed from the
+ * merged manifest.
+ */
+public class MetadataAnalysisPlugin implements Plugin <Project>
+{
+  @Override
+  public void apply (final Project project)
+  {
+    final MetadataAnalysisExtension extension =
+        project.getExtensions ().create ("metadataAnalysis", MetadataAnalysisExtension.class);
+
+    project.getPluginManager ().withPlugin ("com.android.application", new Action <AppliedPlugin> ()
+    {
+      @Override
+      public void execute (AppliedPlugin plugin)
+      {
+        AppExtension android = project.getExtensions ().getByType (AppExtension.class);
+
+        android.getApplicationVariants ().all (new Action <ApplicationVariant> ()
+        {
+          @Override
+          public void execute (final ApplicationVariant variant)
+          {
+            variant.getOutputs ().all (new Action <BaseVariantOutput> ()
+            {
+              @Override
+              public void execute (BaseVariantOutput output)
+              {
+                addTask (project, extension, variant, output);
+              }
+            });
+          }
+        });
+      }
+    });
+  }
+
+  private static void addTask (final Project project,
+                               final MetadataAnalysisExtension extension,
+                               final ApplicationVariant variant,
+                               final BaseVariantOutput output)
+  {
+    final Task processManifest = output.getProcessManifest ();
+    String name = "analyze" + capitalize (output.getName ()) + "Metadata";
+
+    MetadataAnalysisTask task = project.getTasks ().create (name, MetadataAnalysisTask.class, new Action <MetadataAnalysisTask> ()
+    {
+      @Override
+      public void execute (MetadataAnalysisTask task)
+      {
+        task.setDescription ("Analyzes the meta-data of the " + output.getName () + " manifest.");
+
+        for (SourceProvider sourceProvider : variant.getSourceSets ())
+          task.sources (sourceProvider.getJavaDirectories ());
+
+        // The outputs of the manifest task carry the dependency on the task.
+        task.manifests (processManifest);
+
+        // The variants are created after the build script is evaluated, so
+        // the extension is already configured.
+        task.setPrune (extension.getPrune ());
+        task.setAllowList (extension.getAllowList ());
+        task.setKeepList (extension.getKeepList ());
+
+        DirectoryProperty buildDir = project.getLayout ().getBuildDirectory ();
+
+        task.setManifestDir (buildDir.dir ("intermediates/metadata/" + output.getName ()).get ().getAsFile ());
+        task.setReportFile (buildDir.file ("reports/metadata/" + output.getName () + ".txt").get ().getAsFile ());
+      }
+    });
+
+    // Run the analysis whenever the manifest is merged, and before the merged
+    // manifest is packaged with the resources.
+    processManifest.finalizedBy (task);
+    output.getProcessResources ().dependsOn (task);
+  }
+
+  private static String capitalize (String name)
+  {
+    return name.isEmpty () ? name : Character.toUpperCase (name.charAt (0)) + name.substring (1);
+  }
+}
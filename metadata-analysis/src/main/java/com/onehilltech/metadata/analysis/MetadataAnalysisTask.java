@@ -0,0 +1,281 @@
+/**
+ * Copyright (C) 2013, James H. Hill
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.onehilltech.metadata.analysis;
+
+import org.gradle.api.DefaultTask;
+import org.gradle.api.Task;
+import org.gradle.api.file.ConfigurableFileCollection;
+import org.gradle.api.file.FileCollection;
+import org.gradle.api.specs.Spec;
+import org.gradle.api.tasks.Input;
+import org.gradle.api.tasks.InputFiles;
+import org.gradle.api.tasks.OutputDirectory;
+import org.gradle.api.tasks.OutputFile;
+import org.gradle.api.tasks.PathSensitive;
+import org.gradle.api.tasks.PathSensitivity;
+import org.gradle.api.tasks.TaskAction;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Task that analyzes the meta-data in the merged manifests of a variant
+ * output. The task scans the Java sources for the keys they read, and
+ * writes a report of the used and unused entries, with their estimated
+ * size. When pruning is enabled, the task writes a copy of each manifest
+ * without the unused entries that match the allow list, and replaces the
+ * merged manifest with the copy so it is the one that is packaged.
+ */
+public class MetadataAnalysisTask extends DefaultTask
+{
+  private final ConfigurableFileCollection sources_ = this.getProject ().files ();
+
+  private final ConfigurableFileCollection manifests_ = this.getProject ().files ();
+
+  private boolean prune_ = false;
+
+  private final List <String> allowList_ = new ArrayList<> ();
+
+  private final List <String> keepList_ = new ArrayList<> ();
+
+  private File manifestDir_;
+
+  private File reportFile_;
+
+  public MetadataAnalysisTask ()
+  {
+    // A pruned manifest replaces the output of the manifest task, which writes
+    // the unpruned manifest again whenever it runs. The inputs of this task do
+    // not change when that happens, so it must always run when pruning.
+    this.getOutputs ().upToDateWhen (new Spec <Task> ()
+    {
+      @Override
+      public boolean isSatisfiedBy (Task task)
+      {
+        return !prune_;
+      }
+    });
+  }
+
+  /**
+   * Get the source directories that are scanned for the keys they read.
+   */
+  @InputFiles
+  @PathSensitive (PathSensitivity.RELATIVE)
+  public FileCollection getSources ()
+  {
+    return this.sources_;
+  }
+
+  public void sources (Object... paths)
+  {
+    this.sources_.from (paths);
+  }
+
+  /**
+   * Get the outputs of the manifest task. Each AndroidManifest.xml in the
+   * outputs is analyzed.
+   */
+  @InputFiles
+  @PathSensitive (PathSensitivity.RELATIVE)
+  public FileCollection getManifests ()
+  {
+    return this.manifests_;
+  }
+
+  public void manifests (Object... paths)
+  {
+    this.manifests_.from (paths);
+  }
+
+  @Input
+  public boolean getPrune ()
+  {
+    return this.prune_;
+  }
+
+  public void setPrune (boolean prune)
+  {
+    this.prune_ = prune;
+  }
+
+  @Input
+  public List <String> getAllowList ()
+  {
+    return this.allowList_;
+  }
+
+  public void setAllowList (List <String> allowList)
+  {
+    this.allowList_.clear ();
+    this.allowList_.addAll (allowList);
+  }
+
+  @Input
+  public List <String> getKeepList ()
+  {
+    return this.keepList_;
+  }
+
+  public void setKeepList (List <String> keepList)
+  {
+    this.keepList_.clear ();
+    this.keepList_.addAll (keepList);
+  }
+
+  /**
+   * Get the directory of the pruned manifests.
+   */
+  @OutputDirectory
+  public File getManifestDir ()
+  {
+    return this.manifestDir_;
+  }
+
+  public void setManifestDir (File manifestDir)
+  {
+    this.manifestDir_ = manifestDir;
+  }
+
+  @OutputFile
+  public File getReportFile ()
+  {
+    return this.reportFile_;
+  }
+
+  public void setReportFile (File reportFile)
+  {
+    this.reportFile_ = reportFile;
+  }
+
+  @TaskAction
+  public void analyze ()
+      throws IOException
+  {
+    MetadataUsageScanner scanner = new MetadataUsageScanner ();
+
+    for (File dir : this.sources_.getFiles ())
+      scanner.scanDirectory (dir);
+
+    MetadataAnalyzer analyzer = new MetadataAnalyzer (scanner.getKeys (), this.allowList_, this.keepList_);
+
+    // An unresolved read could be of any entry, so the entries that look
+    // unused cannot be removed safely.
+    List <String> unresolved = scanner.getUnresolved ();
+    boolean prune = this.prune_ && unresolved.isEmpty ();
+
+    for (String read : unresolved)
+      this.getLogger ().warn ("Cannot resolve the meta-data key read at {}", read);
+
+    if (this.prune_ && !prune)
+      this.getLogger ().warn ("The meta-data analysis is incomplete; unused entries are not pruned");
+
+    // Remove the manifests of a previous run.
+    this.getProject ().delete (this.manifestDir_);
+    this.manifestDir_.mkdirs ();
+    this.reportFile_.getParentFile ().mkdirs ();
+
+    try (Writer writer = new OutputStreamWriter (new FileOutputStream (this.reportFile_), "UTF-8"))
+    {
+      if (!unresolved.isEmpty ())
+      {
+        writer.write ("# Incomplete: the keys read at the following locations are unknown\n\n");
+
+        for (String read : unresolved)
+          writer.write ("  " + read + "\n");
+
+        writer.write ("\n");
+      }
+
+      int index = 0;
+
+      for (File root : this.manifests_.getFiles ())
+      {
+        for (File manifest : findManifests (root))
+        {
+          MetadataReport report;
+
+          if (prune)
+          {
+            // Each output of the manifest task has its own directory, so the
+            // manifests with the same relative path do not collide.
+            File pruned = new File (new File (this.manifestDir_, Integer.toString (index)), relativePath (root, manifest));
+            pruned.getParentFile ().mkdirs ();
+
+            report = analyzer.prune (manifest, pruned);
+
+            if (report.getPrunedSize () > 0)
+              Files.copy (pruned.toPath (), manifest.toPath (), StandardCopyOption.REPLACE_EXISTING);
+          }
+          else
+          {
+            report = analyzer.analyze (manifest);
+          }
+
+          writer.write ("# " + manifest + "\n\n");
+          report.write (writer);
+        }
+
+        ++ index;
+      }
+    }
+
+    this.getLogger ().info ("Meta-data report written to {}", this.reportFile_);
+  }
+
+  private static String relativePath (File root, File file)
+  {
+    if (root.equals (file))
+      return file.getName ();
+
+    return root.toURI ().relativize (file.toURI ()).getPath ();
+  }
+
+  /**
+   * Find the manifests in a file or directory.
+   */
+  private static List <File> findManifests (File root)
+  {
+    ArrayList <File> manifests = new ArrayList<> ();
+    findManifests (root, manifests);
+
+    return manifests;
+  }
+
+  private static void findManifests (File file, List <File> manifests)
+  {
+    if (file.isDirectory ())
+    {
+      File [] files = file.listFiles ();
+
+      if (files != null)
+        for (File child : files)
+          findManifests (child, manifests);
+    }
+    else if (file.getName ().equals ("AndroidManifest.xml"))
+    {
+      manifests.add (file);
+    }
+  }
+}
@@ -0,0 +1,305 @@
+/**
+ * Copyright (C) 2013, James H. Hill
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.onehilltech.metadata.analysis;
+
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+import org.w3c.dom.NodeList;
+import org.xml.sax.SAXException;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.transform.OutputKeys;
+import javax.xml.transform.Transformer;
+import javax.xml.transform.TransformerException;
+import javax.xml.transform.TransformerFactory;
+import javax.xml.transform.dom.DOMSource;
+import javax.xml.transform.stream.StreamResult;
+
+/**
+ * Analyzes the meta-data entries of a merged AndroidManifest.xml against
+ * the set of keys that are read by the application. Unused entries can be
+ * pruned from the manifest. Because the keys read by compiled dependencies
+ * cannot be found by scanning the application sources, only unused entries
+ * that match the allow list are pruned.
+ *
+ * Patterns in the allow list and in the keep list are either exact names,
+ * or prefixes that end with '*', such as "com.vendor.*".
+ */
+public class MetadataAnalyzer
+{
+  private static final String ANDROID_NS = "http://schemas.android.com/apk/res/android";
+
+  private static final Charset UTF_16LE = Charset.forName ("UTF-16LE");
+
+  /// Elements that can declare meta-data.
+  private static final String [] COMPONENT_TAGS =
+      {"application", "activity", "activity-alias", "service", "receiver", "provider"};
+
+  private final Set <String> usedKeys_;
+
+  /// Prefixes of the keys read by the application, such as the keys of
+  /// the components found by ManifestMetadata.discoverComponents ().
+  private final List <String> usedPrefixes_ = new ArrayList<> ();
+
+  private final List <String> allowList_;
+
+  private final List <String> keepList_;
+
+  /**
+   * Initializing constructor.
+   *
+   * @param usedKeys        Keys read by the application. A key that ends with
+   *                        * marks all keys with the prefix as read.
+   * @param allowList       Patterns of unused keys that can be pruned
+   * @param keepList        Patterns of keys that are always considered used
+   */
+  public MetadataAnalyzer (Collection <String> usedKeys, Collection <String> allowList, Collection <String> keepList)
+  {
+    this.usedKeys_ = new HashSet<> (usedKeys);
+    this.allowList_ = new ArrayList<> (allowList);
+    this.keepList_ = new ArrayList<> (keepList);
+
+    for (String key : usedKeys)
+    {
+      if (key.endsWith ("*"))
+        this.usedPrefixes_.add (key);
+    }
+  }
+
+  /**
+   * Analyze a merged manifest without changing it.
+   *
+   * @param manifest        The manifest file
+   * @return                The report
+   */
+  public MetadataReport analyze (File manifest)
+      throws IOException
+  {
+    return this.process (manifest, manifest, false);
+  }
+
+  /**
+   * Analyze a merged manifest, and remove the unused entries that match the
+   * allow list.
+   *
+   * @param manifest        The manifest file
+   * @return                The report
+   */
+  public MetadataReport prune (File manifest)
+      throws IOException
+  {
+    return this.process (manifest, manifest, true);
+  }
+
+  /**
+   * Analyze a merged manifest, and write a copy without the unused entries
+   * that match the allow list. The original manifest is not changed.
+   *
+   * @param manifest        The manifest file
+   * @param output          The pruned manifest file
+   * @return                The report
+   */
+  public MetadataReport prune (File manifest, File output)
+      throws IOException
+  {
+    return this.process (manifest, output, true);
+  }
+
+  /**
+   * Test if a key is read by the application.
+   */
+  public boolean isUsed (String name)
+  {
+    return this.usedKeys_.contains (name) ||
+           matches (this.usedPrefixes_, name) ||
+           matches (this.keepList_, name);
+  }
+
+  private MetadataReport process (File manifest, File output, boolean prune)
+      throws IOException
+  {
+    Document document = parse (manifest);
+    MetadataReport report = new MetadataReport ();
+    boolean modified = false;
+
+    for (String tag : COMPONENT_TAGS)
+    {
+      NodeList elements = document.getElementsByTagName (tag);
+
+      for (int i = 0; i < elements.getLength (); ++ i)
+      {
+        Element element = (Element)elements.item (i);
+        String componentName = tag.equals ("application") ? tag : tag + ":" + element.getAttributeNS (ANDROID_NS, "name");
+        MetadataReport.Component component = new MetadataReport.Component (componentName);
+
+        for (Element metadata : getMetadataElements (element))
+        {
+          String name = metadata.getAttributeNS (ANDROID_NS, "name");
+          boolean used = this.isUsed (name);
+          boolean pruned = prune && !used && matches (this.allowList_, name);
+
+          component.addEntry (new MetadataReport.Entry (name, estimateSize (metadata), used, pruned));
+
+          if (pruned)
+          {
+            element.removeChild (metadata);
+            modified = true;
+          }
+        }
+
+        report.addComponent (component);
+      }
+    }
+
+    if (modified)
+      write (document, output);
+    else if (!output.equals (manifest))
+      Files.copy (manifest.toPath (), output.toPath (), StandardCopyOption.REPLACE_EXISTING);
+
+    return report;
+  }
+
+  /**
+   * Estimate the number of bytes an entry adds to a parceled Bundle: the
+   * key, the type tag, and the value.
+   */
+  static int estimateSize (Element metadata)
+  {
+    int size = parcelStringSize (metadata.getAttributeNS (ANDROID_NS, "name")) + 4;
+
+    if (metadata.hasAttributeNS (ANDROID_NS, "resource"))
+      return size + 4;
+
+    String value = metadata.getAttributeNS (ANDROID_NS, "value");
+
+    // The build tools store integers, floats, and booleans as 32-bit values,
+    // and everything else as strings.
+    if (value.equals ("true") || value.equals ("false") || isNumber (value))
+      return size + 4;
+
+    return size + parcelStringSize (value);
+  }
+
+  /**
+   * Size of a string written to a Parcel: the length, followed by the UTF-16
+   * characters and a null terminator, padded to a multiple of 4 bytes.
+   */
+  private static int parcelStringSize (String str)
+  {
+    int length = str.getBytes (UTF_16LE).length + 2;
+    return 4 + ((length + 3) & ~3);
+  }
+
+  private static boolean isNumber (String value)
+  {
+    try
+    {
+      if (value.startsWith ("0x") || value.startsWith ("0X"))
+        Long.parseLong (value.substring (2), 16);
+      else
+        Float.parseFloat (value);
+
+      return !value.isEmpty () && Character.isDigit (value.charAt (value.length () - 1));
+    }
+    catch (NumberFormatException e)
+    {
+      return false;
+    }
+  }
+
+  private static boolean matches (List <String> patterns, String name)
+  {
+    for (String pattern : patterns)
+    {
+      if (pattern.endsWith ("*"))
+      {
+        if (name.startsWith (pattern.substring (0, pattern.length () - 1)))
+          return true;
+      }
+      else if (pattern.equals (name))
+      {
+        return true;
+      }
+    }
+
+    return false;
+  }
+
+  /**
+   * Get the meta-data elements that are direct children of an element.
+   */
+  private static List <Element> getMetadataElements (Element element)
+  {
+    ArrayList <Element> metadata = new ArrayList<> ();
+    NodeList children = element.getChildNodes ();
+
+    for (int i = 0; i < children.getLength (); ++ i)
+    {
+      Node child = children.item (i);
+
+      if (child.getNodeType () == Node.ELEMENT_NODE && child.getNodeName ().equals ("meta-data"))
+        metadata.add ((Element)child);
+    }
+
+    return metadata;
+  }
+
+  private static Document parse (File manifest)
+      throws IOException
+  {
+    try
+    {
+      DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance ();
+      factory.setNamespaceAware (true);
+
+      return factory.newDocumentBuilder ().parse (manifest);
+    }
+    catch (ParserConfigurationException | SAXException e)
+    {
+      throw new IOException ("Failed to parse " + manifest, e);
+    }
+  }
+
+  private static void write (Document document, File manifest)
+      throws IOException
+  {
+    try
+    {
+      Transformer transformer = TransformerFactory.newInstance ().newTransformer ();
+      transformer.setOutputProperty (OutputKeys.ENCODING, "utf-8");
+      transformer.transform (new DOMSource (document), new StreamResult (manifest));
+    }
+    catch (TransformerException e)
+    {
+      throw new IOException ("Failed to write " + manifest, e);
+    }
+  }
+}
@@ -0,0 +1,218 @@
+/**
+ * Copyright (C) 2013, James H. Hill
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.onehilltech.metadata.analysis;
+
+import java.io.PrintWriter;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Report of the meta-data entries in a merged manifest. The entries are
+ * grouped by the component that declares them. The size of an entry is an
+ * estimate of the number of bytes it adds to the parceled meta-data Bundle.
+ */
+public class MetadataReport
+{
+  /**
+   * A single meta-data entry.
+   */
+  public static class Entry
+  {
+    private final String name_;
+
+    private final int size_;
+
+    private final boolean used_;
+
+    private final boolean pruned_;
+
+    Entry (String name, int size, boolean used, boolean pruned)
+    {
+      this.name_ = name;
+      this.size_ = size;
+      this.used_ = used;
+      this.pruned_ = pruned;
+    }
+
+    public String getName ()
+    {
+      return this.name_;
+    }
+
+    /**
+     * Get the estimated size of the entry in the parceled Bundle, in bytes.
+     */
+    public int getSize ()
+    {
+      return this.size_;
+    }
+
+    /**
+     * Test if the entry is read by the scanned sources.
+     */
+    public boolean isUsed ()
+    {
+      return this.used_;
+    }
+
+    /**
+     * Test if the entry was removed from the manifest.
+     */
+    public boolean isPruned ()
+    {
+      return this.pruned_;
+    }
+  }
+
+  /**
+   * The meta-data entries of a component.
+   */
+  public static class Component
+  {
+    private final String name_;
+
+    private final ArrayList <Entry> entries_ = new ArrayList<> ();
+
+    Component (String name)
+    {
+      this.name_ = name;
+    }
+
+    /**
+     * Get the name of the component. The name of the application is
+     * "application", and the name of other components is the element
+     * name followed by the class name, such as "activity:.MainActivity".
+     */
+    public String getName ()
+    {
+      return this.name_;
+    }
+
+    public List <Entry> getEntries ()
+    {
+      return Collections.unmodifiableList (this.entries_);
+    }
+
+    /**
+     * Get the estimated size of the meta-data Bundle, in bytes.
+     */
+    public int getSize ()
+    {
+      return this.sumSize (false, false);
+    }
+
+    /**
+     * Get the estimated size of the unused entries, in bytes.
+     */
+    public int getUnusedSize ()
+    {
+      return this.sumSize (true, false);
+    }
+
+    /**
+     * Get the estimated size of the pruned entries, in bytes.
+     */
+    public int getPrunedSize ()
+    {
+      return this.sumSize (false, true);
+    }
+
+    void addEntry (Entry entry)
+    {
+      this.entries_.add (entry);
+    }
+
+    private int sumSize (boolean unusedOnly, boolean prunedOnly)
+    {
+      int size = 0;
+
+      for (Entry entry : this.entries_)
+      {
+        if (unusedOnly && entry.isUsed ())
+          continue;
+
+        if (prunedOnly && !entry.isPruned ())
+          continue;
+
+        size += entry.getSize ();
+      }
+
+      return size;
+    }
+  }
+
+  private final ArrayList <Component> components_ = new ArrayList<> ();
+
+  public List <Component> getComponents ()
+  {
+    return Collections.unmodifiableList (this.components_);
+  }
+
+  /**
+   * Get the number of bytes pruned from all components.
+   */
+  public int getPrunedSize ()
+  {
+    int size = 0;
+
+    for (Component component : this.components_)
+      size += component.getPrunedSize ();
+
+    return size;
+  }
+
+  void addComponent (Component component)
+  {
+    this.components_.add (component);
+  }
+
+  /**
+   * Write the report in a human-readable format.
+   *
+   * @param writer        Target writer
+   */
+  public void write (Writer writer)
+  {
+    PrintWriter out = new PrintWriter (writer);
+
+    for (Component component : this.components_)
+    {
+      if (component.getEntries ().isEmpty ())
+        continue;
+
+      out.printf ("%s: %d entries, %d bytes, %d bytes unused, %d bytes pruned%n",
+                  component.getName (),
+                  component.getEntries ().size (),
+                  component.getSize (),
+                  component.getUnusedSize (),
+                  component.getPrunedSize ());
+
+      for (Entry entry : component.getEntries ())
+      {
+        String status = entry.isPruned () ? "pruned" : (entry.isUsed () ? "used" : "unused");
+        out.printf ("  %-8s %6d  %s%n", status, entry.getSize (), entry.getName ());
+      }
+
+      out.println ();
+    }
+
+    out.flush ();
+  }
+}
@@ -0,0 +1,208 @@
+/**
+ * Copyright (C) 2013, James H. Hill
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.onehilltech.metadata.analysis;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Scans Java source files for the meta-data keys they read. A key is read
+ * when it is the name of a @MetadataProperty or @MetadataMethod annotation,
+ * or when it is a String literal passed as the first argument to one of the
+ * ManifestMetadata lookup methods, such as getValue (). A String literal
+ * passed as the prefix to discoverComponents () marks all keys with the
+ * prefix as read, and is returned as the prefix followed by *.
+ *
+ * Keys built at runtime, or stored in constants, are not found. Treat the
+ * result as a lower bound on the keys that are read. Annotation names and
+ * discovery prefixes that are not String literals are reported as
+ * unresolved, because the scanner cannot tell which entries they read.
+ */
+public class MetadataUsageScanner
+{
+  /// Annotation with an optional argument list.
+  private static final Pattern ANNOTATION =
+      Pattern.compile ("@(?:com\\.onehilltech\\.metadata\\.)?(MetadataProperty|MetadataMethod)\\s*(?:\\(([^)]*)\\))?");
+
+  /// A name argument whose value is a single String literal.
+  private static final Pattern NAME_ARGUMENT = Pattern.compile ("\\bname\\s*=\\s*\"([^\"]*)\"\\s*(?:,|$)");
+
+  /// A name argument with any value.
+  private static final Pattern ANY_NAME_ARGUMENT = Pattern.compile ("\\bname\\s*=");
+
+  /// Name of the field that follows a @MetadataProperty annotation.
+  private static final Pattern FIELD_NAME =
+      Pattern.compile ("\\G(?:\\s*(?:@\\w+(?:\\([^)]*\\))?|public|protected|private|static|final|transient|volatile))*\\s*[\\w.<>\\[\\]?, ]+?\\s+(\\w+)\\s*[;=]");
+
+  private static final Pattern LOOKUP =
+      Pattern.compile ("\\.(?:getValue|getLayer|readXml|readTypedArray|readRaw|mapRaw)\\s*\\(\\s*\"([^\"]+)\"");
+
+  private static final Pattern DISCOVERY =
+      Pattern.compile ("\\.discoverComponents\\s*\\(\\s*(?:\"([^\"]*)\"\\s*,)?");
+
+  private final TreeSet <String> keys_ = new TreeSet<> ();
+
+  private final ArrayList <String> unresolved_ = new ArrayList<> ();
+
+  /**
+   * Scan all the Java source files under a directory.
+   *
+   * @param dir         The source directory
+   * @throws IOException
+   */
+  public void scanDirectory (File dir)
+      throws IOException
+  {
+    File [] files = dir.listFiles ();
+
+    if (files == null)
+      return;
+
+    for (File file : files)
+    {
+      if (file.isDirectory ())
+        this.scanDirectory (file);
+      else if (file.getName ().endsWith (".java"))
+        this.scanFile (file);
+    }
+  }
+
+  /**
+   * Scan a Java source file.
+   *
+   * @param file        The source file
+   * @throws IOException
+   */
+  public void scanFile (File file)
+      throws IOException
+  {
+    StringBuilder source = new StringBuilder ();
+
+    try (BufferedReader reader = new BufferedReader (new InputStreamReader (new FileInputStream (file), "UTF-8")))
+    {
+      String line;
+
+      while ((line = reader.readLine ()) != null)
+        source.append (line).append ('\n');
+    }
+
+    this.scanSource (source, file.getPath ());
+  }
+
+  /**
+   * Scan Java source code.
+   *
+   * @param source      The source code
+   */
+  public void scanSource (CharSequence source)
+  {
+    this.scanSource (source, "<source>");
+  }
+
+  private void scanSource (CharSequence source, String location)
+  {
+    Matcher annotation = ANNOTATION.matcher (source);
+
+    while (annotation.find ())
+    {
+      String arguments = annotation.group (2) != null ? annotation.group (2) : "";
+      Matcher name = NAME_ARGUMENT.matcher (arguments);
+      boolean literal = name.find ();
+
+      if (literal && !name.group (1).isEmpty ())
+      {
+        this.keys_.add (name.group (1));
+      }
+      else if (!literal && ANY_NAME_ARGUMENT.matcher (arguments).find ())
+      {
+        // The name is not a String literal, such as a constant. Do not guess
+        // the key that is read.
+        this.addUnresolved (source, location, annotation.start (), annotation.group ());
+      }
+      else if (annotation.group (1).equals ("MetadataProperty"))
+      {
+        // The name of a @MetadataProperty defaults to the name of the field.
+        Matcher field = FIELD_NAME.matcher (source);
+
+        if (field.find (annotation.end ()))
+          this.keys_.add (field.group (1));
+      }
+      else
+      {
+        // The name of a @MetadataMethod is required.
+        this.addUnresolved (source, location, annotation.start (), annotation.group ());
+      }
+    }
+
+    Matcher lookup = LOOKUP.matcher (source);
+
+    while (lookup.find ())
+      this.keys_.add (lookup.group (1));
+
+    Matcher discovery = DISCOVERY.matcher (source);
+
+    while (discovery.find ())
+    {
+      // Without a literal prefix, the components that are read are not known.
+      if (discovery.group (1) != null)
+        this.keys_.add (discovery.group (1) + "*");
+      else
+        this.addUnresolved (source, location, discovery.start (), discovery.group ());
+    }
+  }
+
+  private void addUnresolved (CharSequence source, String location, int offset, String text)
+  {
+    int line = 1;
+
+    for (int i = 0; i < offset; ++ i)
+    {
+      if (source.charAt (i) == '\n')
+        ++ line;
+    }
+
+    this.unresolved_.add (location + ":" + line + ": " + text.trim ());
+  }
+
+  /**
+   * Get the keys found so far.
+   */
+  public Set <String> getKeys ()
+  {
+    return this.keys_;
+  }
+
+  /**
+   * Get the reads whose key could not be determined, such as an annotation
+   * name that is a constant. If there are any, the keys found so far are
+   * incomplete, and unused entries must not be pruned.
+   */
+  public List <String> getUnresolved ()
+  {
+    return this.unresolved_;
+  }
+}
@@ -0,0 +1,170 @@
+/**
+ * Copyright (C) 2013, James H. Hill
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.onehilltech.metadata.analysis;
+
+import org.gradle.api.Project;
+import org.gradle.testfixtures.ProjectBuilder;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.Collections;
+import java.util.Map;
+
+public class MetadataAnalysisPluginTest
+{
+  private static final String MANIFEST =
+      "<manifest xmlns:android=\"http://schemas.android.com/apk/res/android\" package=\"com.example\">\n" +
+      "  <application>\n" +
+      "    <meta-data android:name=\"app.used\" android:value=\"42\" />\n" +
+      "    <meta-data android:name=\"com.vendor.unused\" android:value=\"Hello, World!\" />\n" +
+      "  </application>\n" +
+      "</manifest>\n";
+
+  private static final String SOURCE =
+      "class Main {\n" +
+      "  void onCreate () { metadata.getValue (\"app.used\", Integer.class); }\n" +
+      "}\n";
+
+  private File projectDir_;
+
+  private Project project_;
+
+  private File manifest_;
+
+  @Before
+  public void setup () throws Exception
+  {
+    this.projectDir_ = Files.createTempDirectory ("metadata-analysis").toFile ();
+    this.project_ = ProjectBuilder.builder ().withProjectDir (this.projectDir_).build ();
+
+    File sourceDir = new File (this.projectDir_, "src/main/java");
+    Assert.assertTrue (sourceDir.mkdirs ());
+    Files.write (new File (sourceDir, "Main.java").toPath (), SOURCE.getBytes ("UTF-8"));
+
+    File manifestDir = new File (this.projectDir_, "build/intermediates/merged_manifests/debug");
+    Assert.assertTrue (manifestDir.mkdirs ());
+
+    this.manifest_ = new File (manifestDir, "AndroidManifest.xml");
+    Files.write (this.manifest_.toPath (), MANIFEST.getBytes ("UTF-8"));
+  }
+
+  @After
+  public void teardown ()
+  {
+    this.project_.delete (this.projectDir_);
+  }
+
+  private MetadataAnalysisTask newTask (boolean prune)
+  {
+    MetadataAnalysisTask task = this.project_.getTasks ().create ("analyzeDebugMetadata", MetadataAnalysisTask.class);
+
+    task.sources (new File (this.projectDir_, "src/main/java"));
+    task.manifests (this.manifest_.getParentFile ());
+    task.setPrune (prune);
+    task.setAllowList (Collections.singletonList ("com.vendor.*"));
+    task.setManifestDir (new File (this.projectDir_, "build/intermediates/metadata/debug"));
+    task.setReportFile (new File (this.projectDir_, "build/reports/metadata/debug.txt"));
+
+    return task;
+  }
+
+  private static String read (File file) throws Exception
+  {
+    return new String (Files.readAllBytes (file.toPath ()), "UTF-8");
+  }
+
+  @Test
+  public void testApply ()
+  {
+    this.project_.getPluginManager ().apply ("com.onehilltech.metadata-analysis");
+
+    Object extension = this.project_.getExtensions ().getByName ("metadataAnalysis");
+    Assert.assertTrue (extension instanceof MetadataAnalysisExtension);
+
+    // The tasks are only added for the variants of an Android application.
+    Assert.assertTrue (this.project_.getTasks ().withType (MetadataAnalysisTask.class).isEmpty ());
+  }
+
+  @Test
+  public void testInputsAndOutputs ()
+  {
+    MetadataAnalysisTask task = newTask (true);
+
+    Map <String, Object> properties = task.getInputs ().getProperties ();
+    Assert.assertEquals (true, properties.get ("prune"));
+    Assert.assertEquals (Collections.singletonList ("com.vendor.*"), properties.get ("allowList"));
+    Assert.assertEquals (Collections.emptyList (), properties.get ("keepList"));
+
+    Assert.assertTrue (task.getInputs ().getFiles ().getFiles ().contains (this.manifest_.getParentFile ()));
+    Assert.assertTrue (task.getInputs ().getFiles ().getFiles ().contains (new File (this.projectDir_, "src/main/java")));
+
+    Assert.assertTrue (task.getOutputs ().getFiles ().contains (task.getReportFile ()));
+    Assert.assertTrue (task.getOutputs ().getFiles ().contains (task.getManifestDir ()));
+  }
+
+  @Test
+  public void testAnalyze () throws Exception
+  {
+    MetadataAnalysisTask task = newTask (false);
+    task.analyze ();
+
+    // The merged manifest is not changed.
+    Assert.assertEquals (MANIFEST, read (this.manifest_));
+
+    String report = read (task.getReportFile ());
+    Assert.assertTrue (report.contains ("unused"));
+    Assert.assertTrue (report.contains ("com.vendor.unused"));
+  }
+
+  @Test
+  public void testPrune () throws Exception
+  {
+    MetadataAnalysisTask task = newTask (true);
+    task.analyze ();
+
+    File pruned = new File (task.getManifestDir (), "0/AndroidManifest.xml");
+    Assert.assertTrue (pruned.exists ());
+    Assert.assertFalse (read (pruned).contains ("com.vendor.unused"));
+
+    // The pruned manifest replaces the merged manifest.
+    Assert.assertEquals (read (pruned), read (this.manifest_));
+    Assert.assertTrue (read (this.manifest_).contains ("app.used"));
+
+    Assert.assertTrue (read (task.getReportFile ()).contains ("pruned"));
+  }
+
+  @Test
+  public void testUnresolvedDisablesPruning () throws Exception
+  {
+    Files.write (new File (this.projectDir_, "src/main/java/Keys.java").toPath (),
+                 "class Keys { @MetadataProperty (name = Vendor.KEY) public String key; }\n".getBytes ("UTF-8"));
+
+    MetadataAnalysisTask task = newTask (true);
+    task.analyze ();
+
+    // The unresolved key could be the vendor entry, so it is not removed.
+    Assert.assertEquals (MANIFEST, read (this.manifest_));
+
+    String report = read (task.getReportFile ());
+    Assert.assertTrue (report.contains ("Incomplete"));
+    Assert.assertTrue (report.contains ("Vendor.KEY"));
+  }
+}
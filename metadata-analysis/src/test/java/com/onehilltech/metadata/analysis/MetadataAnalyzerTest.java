@@ -0,0 +1,114 @@
+/**
+ * Copyright (C) 2013, James H. Hill
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.onehilltech.metadata.analysis;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Collections;
+
+public class MetadataAnalyzerTest
+{
+  private static final String MANIFEST =
+      "<manifest xmlns:android=\"http://schemas.android.com/apk/res/android\" package=\"com.example\">\n" +
+      "  <application>\n" +
+      "    <activity android:name=\".MainActivity\">\n" +
+      "      <meta-data android:name=\"activity.used\" android:value=\"Hello\" />\n" +
+      "    </activity>\n" +
+      "    <meta-data android:name=\"app.used\" android:value=\"42\" />\n" +
+      "    <meta-data android:name=\"com.vendor.unused\" android:value=\"Hello, World!\" />\n" +
+      "    <meta-data android:name=\"com.vendor.license\" android:value=\"abc\" />\n" +
+      "    <meta-data android:name=\"other.unused\" android:resource=\"@string/app_name\" />\n" +
+      "  </application>\n" +
+      "</manifest>\n";
+
+  private static File newManifest () throws Exception
+  {
+    File manifest = File.createTempFile ("AndroidManifest", ".xml");
+    manifest.deleteOnExit ();
+
+    Files.write (manifest.toPath (), MANIFEST.getBytes ("UTF-8"));
+
+    return manifest;
+  }
+
+  private static MetadataAnalyzer newAnalyzer ()
+  {
+    return new MetadataAnalyzer (Arrays.asList ("activity.used", "app.used"),
+                                 Collections.singletonList ("com.vendor.*"),
+                                 Collections.singletonList ("com.vendor.license"));
+  }
+
+  @Test
+  public void testAnalyze () throws Exception
+  {
+    File manifest = newManifest ();
+    MetadataReport report = newAnalyzer ().analyze (manifest);
+
+    MetadataReport.Component application = report.getComponents ().get (0);
+    Assert.assertEquals ("application", application.getName ());
+    Assert.assertEquals (4, application.getEntries ().size ());
+    Assert.assertTrue (application.getEntries ().get (0).isUsed ());
+    Assert.assertFalse (application.getEntries ().get (1).isUsed ());
+    Assert.assertTrue (application.getEntries ().get (2).isUsed ());
+    Assert.assertFalse (application.getEntries ().get (3).isUsed ());
+    Assert.assertEquals (0, application.getPrunedSize ());
+
+    MetadataReport.Component activity = report.getComponents ().get (1);
+    Assert.assertEquals ("activity:.MainActivity", activity.getName ());
+    Assert.assertEquals (1, activity.getEntries ().size ());
+
+    // The manifest is not changed.
+    Assert.assertEquals (MANIFEST, new String (Files.readAllBytes (manifest.toPath ()), "UTF-8"));
+  }
+
+  @Test
+  public void testPrune () throws Exception
+  {
+    File manifest = newManifest ();
+    MetadataReport report = newAnalyzer ().prune (manifest);
+
+    MetadataReport.Component application = report.getComponents ().get (0);
+    Assert.assertTrue (application.getEntries ().get (1).isPruned ());
+    Assert.assertFalse (application.getEntries ().get (3).isPruned ());
+    Assert.assertEquals (application.getEntries ().get (1).getSize (), application.getPrunedSize ());
+
+    String contents = new String (Files.readAllBytes (manifest.toPath ()), "UTF-8");
+    Assert.assertFalse (contents.contains ("com.vendor.unused"));
+    Assert.assertTrue (contents.contains ("com.vendor.license"));
+    Assert.assertTrue (contents.contains ("other.unused"));
+  }
+
+  @Test
+  public void testEstimateSize () throws Exception
+  {
+    MetadataReport report = newAnalyzer ().analyze (newManifest ());
+    MetadataReport.Component application = report.getComponents ().get (0);
+
+    // "app.used" is 8 characters: 4 + 20 for the key, 4 for the type, and
+    // 4 for the integer value.
+    Assert.assertEquals (32, application.getEntries ().get (0).getSize ());
+
+    // "com.vendor.unused" is 17 characters: 4 + 36 for the key. "Hello, World!"
+    // is 13 characters: 4 + 28 for the value.
+    Assert.assertEquals (40 + 4 + 32, application.getEntries ().get (1).getSize ());
+  }
+}
@@ -0,0 +1,106 @@
+/**
+ * Copyright (C) 2013, James H. Hill
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.onehilltech.metadata.analysis;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.TreeSet;
+
+public class MetadataUsageScannerTest
+{
+  @Test
+  public void testScanSource ()
+  {
+    String source =
+        "public class MyData {\n" +
+        "  @MetadataProperty (name=\"my.message\")\n" +
+        "  public String message;\n" +
+        "\n" +
+        "  @MetadataProperty (fromResource=true)\n" +
+        "  public int backgroundColor;\n" +
+        "\n" +
+        "  @MetadataMethod (name=\"appid\", fromResource=true)\n" +
+        "  public void setAppId (String appid) { }\n" +
+        "\n" +
+        "  public void load (ManifestMetadata metadata) throws Exception {\n" +
+        "    metadata.getValue (\"conn.timeout\", Integer.class);\n" +
+        "    metadata.mapRaw (\"config\");\n" +
+        "  }\n" +
+        "}\n";
+
+    MetadataUsageScanner scanner = new MetadataUsageScanner ();
+    scanner.scanSource (source);
+
+    Assert.assertEquals (new TreeSet<> (Arrays.asList ("my.message", "backgroundColor", "appid", "conn.timeout", "config")),
+                         scanner.getKeys ());
+  }
+
+  @Test
+  public void testScanDiscovery ()
+  {
+    String source =
+        "public class MyApplication extends Application {\n" +
+        "  public void onCreate () {\n" +
+        "    ManifestMetadata.get (this).discoverComponents (\"com.example.startup.\", executor).start ();\n" +
+        "  }\n" +
+        "}\n";
+
+    MetadataUsageScanner scanner = new MetadataUsageScanner ();
+    scanner.scanSource (source);
+
+    Assert.assertEquals (new TreeSet<> (Arrays.asList ("com.example.startup.*")), scanner.getKeys ());
+
+    // The keys with the prefix are used.
+    MetadataAnalyzer analyzer = new MetadataAnalyzer (scanner.getKeys (), Arrays.asList ("com.example.*"), Arrays.<String> asList ());
+
+    Assert.assertTrue (analyzer.isUsed ("com.example.startup.Analytics"));
+    Assert.assertFalse (analyzer.isUsed ("com.example.other"));
+  }
+
+  @Test
+  public void testUnresolvedName ()
+  {
+    String source =
+        "public class MyData {\n" +
+        "  @MetadataProperty (name = Keys.API_KEY)\n" +
+        "  public String apiKey;\n" +
+        "\n" +
+        "  @MetadataProperty (name = \"my.\" + SUFFIX)\n" +
+        "  public String message;\n" +
+        "\n" +
+        "  @MetadataProperty (name = \"\", fromResource = true)\n" +
+        "  public int color;\n" +
+        "\n" +
+        "  public void load (ManifestMetadata metadata) throws Exception {\n" +
+        "    metadata.discoverComponents (PREFIX, executor);\n" +
+        "  }\n" +
+        "}\n";
+
+    MetadataUsageScanner scanner = new MetadataUsageScanner ();
+    scanner.scanSource (source);
+
+    // The field names are not the keys that are read. An empty name defaults
+    // to the field name.
+    Assert.assertEquals (new TreeSet<> (Arrays.asList ("color")), scanner.getKeys ());
+
+    Assert.assertEquals (3, scanner.getUnresolved ().size ());
+    Assert.assertEquals ("<source>:2: @MetadataProperty (name = Keys.API_KEY)", scanner.getUnresolved ().get (0));
+  }
+}
@@ -0,0 +1,306 @@
+/**
+ * Copyright (C) 2013, James H. Hill
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.onehilltech.metadata.compiler;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.NestingKind;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.type.PrimitiveType;
+import javax.lang.model.type.TypeMirror;
+import javax.tools.Diagnostic;
+
+/**
+ * Annotation processor that generates a MetadataAccessor for each class with
+ * @MetadataProperty or @MetadataMethod members. The accessor assigns values
+ * to the members with direct field assignments and method calls, so binding
+ * the class does not use reflection.
+ *
+ * Only the public fields and the public single-argument methods of a class
+ * that can be named from its package are covered. ClassBinding binds all
+ * other members, such as members of private or generic classes, using
+ * reflection.
+ */
+public class MetadataAccessorProcessor extends AbstractProcessor
+{
+  private static final String METADATA_PROPERTY = "com.onehilltech.metadata.MetadataProperty";
+
+  private static final String METADATA_METHOD = "com.onehilltech.metadata.MetadataMethod";
+
+  private static final String METADATA_ACCESSOR = "com.onehilltech.metadata.MetadataAccessor";
+
+  private static final String SUFFIX = "$$MetadataAccessor";
+
+  @Override
+  public Set <String> getSupportedAnnotationTypes ()
+  {
+    return new HashSet<> (Arrays.asList (METADATA_PROPERTY, METADATA_METHOD));
+  }
+
+  @Override
+  public SourceVersion getSupportedSourceVersion ()
+  {
+    return SourceVersion.latestSupported ();
+  }
+
+  @Override
+  public boolean process (Set <? extends TypeElement> annotations, RoundEnvironment roundEnv)
+  {
+    // Group the annotated members by the class that declares them.
+    Map <TypeElement, List <Element>> classes = new LinkedHashMap<> ();
+
+    for (TypeElement annotation : annotations)
+    {
+      for (Element element : roundEnv.getElementsAnnotatedWith (annotation))
+      {
+        if (!this.isSupported (element))
+          continue;
+
+        TypeElement type = (TypeElement) element.getEnclosingElement ();
+        List <Element> members = classes.get (type);
+
+        if (members == null)
+        {
+          members = new ArrayList<> ();
+          classes.put (type, members);
+        }
+
+        members.add (element);
+      }
+    }
+
+    for (Map.Entry <TypeElement, List <Element>> entry : classes.entrySet ())
+    {
+      TypeElement type = entry.getKey ();
+
+      if (!this.isAccessible (type))
+        continue;
+
+      try
+      {
+        this.writeAccessor (type, this.removeOverloads (entry.getValue ()));
+      }
+      catch (IOException e)
+      {
+        this.processingEnv.getMessager ().printMessage (Diagnostic.Kind.ERROR,
+            "Failed to write the metadata accessor: " + e.getMessage (), type);
+      }
+    }
+
+    // Do not claim the annotations; other processors may want them.
+    return false;
+  }
+
+  /**
+   * Test if the accessor can assign the member. This must agree with the
+   * members that ClassBinding finds using reflection.
+   */
+  private boolean isSupported (Element element)
+  {
+    Set <Modifier> modifiers = element.getModifiers ();
+
+    if (!modifiers.contains (Modifier.PUBLIC))
+      return false;
+
+    if (element.getKind () == ElementKind.FIELD)
+      return !modifiers.contains (Modifier.FINAL);
+
+    if (element.getKind () == ElementKind.METHOD)
+      return ((ExecutableElement) element).getParameters ().size () == 1;
+
+    return false;
+  }
+
+  /**
+   * Test if the generated accessor, which is in the same package as the
+   * class, can name the class.
+   */
+  private boolean isAccessible (TypeElement type)
+  {
+    if (type.getKind () != ElementKind.CLASS)
+      return false;
+
+    Element current = type;
+
+    while (current instanceof TypeElement)
+    {
+      TypeElement enclosing = (TypeElement) current;
+      NestingKind nesting = enclosing.getNestingKind ();
+
+      if (nesting == NestingKind.LOCAL || nesting == NestingKind.ANONYMOUS)
+        return false;
+
+      if (enclosing.getModifiers ().contains (Modifier.PRIVATE))
+        return false;
+
+      if (!enclosing.getTypeParameters ().isEmpty ())
+        return false;
+
+      current = enclosing.getEnclosingElement ();
+    }
+
+    return true;
+  }
+
+  /**
+   * Remove the overloaded methods. The key of a method is its name, so
+   * overloaded methods are left to reflection.
+   */
+  private List <Element> removeOverloads (List <Element> members)
+  {
+    Map <String, Integer> counts = new HashMap<> ();
+
+    for (Element member : members)
+    {
+      String key = getKey (member);
+      Integer count = counts.get (key);
+
+      counts.put (key, count == null ? 1 : count + 1);
+    }
+
+    List <Element> result = new ArrayList<> ();
+
+    for (Element member : members)
+    {
+      if (counts.get (getKey (member)) == 1)
+        result.add (member);
+    }
+
+    return result;
+  }
+
+  private static String getKey (Element member)
+  {
+    String name = member.getSimpleName ().toString ();
+    return member.getKind () == ElementKind.METHOD ? name + "()" : name;
+  }
+
+  private void writeAccessor (TypeElement type, List <Element> members)
+      throws IOException
+  {
+    if (members.isEmpty ())
+      return;
+
+    String packageName = this.processingEnv.getElementUtils ().getPackageOf (type).getQualifiedName ().toString ();
+    String binaryName = this.processingEnv.getElementUtils ().getBinaryName (type).toString ();
+    String simpleName = (packageName.isEmpty () ? binaryName : binaryName.substring (packageName.length () + 1)) + SUFFIX;
+    String typeName = this.getTypeName (type.asType ());
+
+    StringBuilder keys = new StringBuilder ();
+    StringBuilder cases = new StringBuilder ();
+
+    for (int i = 0; i < members.size (); ++ i)
+    {
+      Element member = members.get (i);
+      String name = member.getSimpleName ().toString ();
+
+      // Static members are qualified by the class instead of the target.
+      String receiver = member.getModifiers ().contains (Modifier.STATIC) ? typeName : "target";
+
+      if (i > 0)
+        keys.append (", ");
+
+      keys.append ('"').append (getKey (member)).append ('"');
+
+      cases.append ("      case ").append (i).append (":\n");
+
+      if (member.getKind () == ElementKind.FIELD)
+      {
+        cases.append ("        ").append (receiver).append ('.').append (name)
+             .append (" = ").append (this.getConversion (member.asType ())).append (";\n");
+      }
+      else
+      {
+        TypeMirror paramType = ((ExecutableElement) member).getParameters ().get (0).asType ();
+
+        cases.append ("        ").append (receiver).append ('.').append (name)
+             .append (" (").append (this.getConversion (paramType)).append (");\n");
+      }
+
+      cases.append ("        break;\n\n");
+    }
+
+    try (Writer writer = this.processingEnv.getFiler ().createSourceFile (
+        packageName.isEmpty () ? simpleName : packageName + "." + simpleName, type).openWriter ())
+    {
+      if (!packageName.isEmpty ())
+        writer.write ("package " + packageName + ";\n\n");
+
+      writer.write (
+          "/**\n" +
+          " * Generated by the metadata-compiler annotation processor. Do not edit.\n" +
+          " */\n" +
+          "public final class " + simpleName + " implements " + METADATA_ACCESSOR + " <" + typeName + ">\n" +
+          "{\n" +
+          "  private static final java.lang.String [] MEMBERS = {" + keys + "};\n\n" +
+          "  @Override\n" +
+          "  public java.lang.String [] getMembers ()\n" +
+          "  {\n" +
+          "    return MEMBERS.clone ();\n" +
+          "  }\n\n" +
+          "  @Override\n" +
+          "  @SuppressWarnings ({\"unchecked\", \"rawtypes\"})\n" +
+          "  public void set (" + typeName + " target, int index, java.lang.Object value)\n" +
+          "  {\n" +
+          "    switch (index)\n" +
+          "    {\n" +
+          cases +
+          "      default:\n" +
+          "        throw new java.lang.IndexOutOfBoundsException (java.lang.String.valueOf (index));\n" +
+          "    }\n" +
+          "  }\n" +
+          "}\n");
+    }
+  }
+
+  private String getTypeName (TypeMirror type)
+  {
+    return this.processingEnv.getTypeUtils ().erasure (type).toString ();
+  }
+
+  /**
+   * Get the expression that casts the value to the member type. ClassBinding
+   * has already converted the value to the exact type of the member, boxed in
+   * its wrapper for a primitive type, so the cast cannot lose information.
+   */
+  private String getConversion (TypeMirror type)
+  {
+    if (type.getKind ().isPrimitive ())
+    {
+      TypeElement boxed = this.processingEnv.getTypeUtils ().boxedClass ((PrimitiveType) type);
+      return "(" + boxed.getQualifiedName () + ") value";
+    }
+
+    return "(" + this.getTypeName (type) + ") value";
+  }
+}
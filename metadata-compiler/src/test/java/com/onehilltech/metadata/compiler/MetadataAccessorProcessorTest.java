@@ -0,0 +1,224 @@
+/**
+ * Copyright (C) 2013, James H. Hill
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.onehilltech.metadata.compiler;
+
+import com.onehilltech.metadata.MapMetadataSource;
+import com.onehilltech.metadata.MetadataAccessor;
+import com.onehilltech.metadata.MetadataBinder;
+import com.onehilltech.metadata.MetadataProperty;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.Writer;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.HashMap;
+
+import javax.tools.DiagnosticCollector;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+
+public class MetadataAccessorProcessorTest
+{
+  private static final String SOURCE =
+      "package sample;\n" +
+      "import com.onehilltech.metadata.MetadataMethod;\n" +
+      "import com.onehilltech.metadata.MetadataProperty;\n" +
+      "public class Values {\n" +
+      "  @MetadataProperty (name=\"metadata.string\") public String theString;\n" +
+      "  @MetadataProperty (name=\"metadata.integer\") public int theInteger;\n" +
+      "  public String methodString;\n" +
+      "  @MetadataMethod (name=\"metadata.string\") public void setMethodString (String str) { this.methodString = str; }\n" +
+      "  public static class Nested {\n" +
+      "    @MetadataProperty (name=\"metadata.integer\") public long theLong;\n" +
+      "  }\n" +
+      "  private static class Hidden {\n" +
+      "    @MetadataProperty (name=\"metadata.string\") public String theString;\n" +
+      "  }\n" +
+      "}\n";
+
+  private File outputDir_;
+
+  private ClassLoader loader_;
+
+  @Before
+  public void setup () throws Exception
+  {
+    this.outputDir_ = Files.createTempDirectory ("metadata-compiler").toFile ();
+
+    File sourceDir = new File (this.outputDir_, "sample");
+    Assert.assertTrue (sourceDir.mkdirs ());
+
+    File sourceFile = new File (sourceDir, "Values.java");
+
+    try (Writer writer = new FileWriter (sourceFile))
+    {
+      writer.write (SOURCE);
+    }
+
+    // The annotations are on the test classpath, which is not necessarily the
+    // classpath of the process. Locate them from the annotation class.
+    String classpath = new File (MetadataProperty.class.getProtectionDomain ().getCodeSource ().getLocation ().toURI ()).getPath ();
+
+    JavaCompiler compiler = ToolProvider.getSystemJavaCompiler ();
+    DiagnosticCollector <JavaFileObject> diagnostics = new DiagnosticCollector<> ();
+
+    try (StandardJavaFileManager fileManager = compiler.getStandardFileManager (diagnostics, null, null))
+    {
+      JavaCompiler.CompilationTask task =
+          compiler.getTask (null,
+                            fileManager,
+                            diagnostics,
+                            Arrays.asList ("-d", this.outputDir_.getPath (), "-classpath", classpath),
+                            null,
+                            fileManager.getJavaFileObjects (sourceFile));
+
+      task.setProcessors (Arrays.asList (new MetadataAccessorProcessor ()));
+
+      Assert.assertTrue (diagnostics.getDiagnostics ().toString (), task.call ());
+    }
+
+    this.loader_ = new URLClassLoader (new URL[] {this.outputDir_.toURI ().toURL ()}, this.getClass ().getClassLoader ());
+  }
+
+  @After
+  public void teardown ()
+  {
+    delete (this.outputDir_);
+  }
+
+  private static void delete (File file)
+  {
+    File [] children = file.listFiles ();
+
+    if (children != null)
+    {
+      for (File child : children)
+        delete (child);
+    }
+
+    file.delete ();
+  }
+
+  @Test
+  public void testGeneratedAccessor () throws Exception
+  {
+    MetadataAccessor <?> accessor =
+        (MetadataAccessor <?>) this.loader_.loadClass ("sample.Values$$MetadataAccessor").getDeclaredConstructor ().newInstance ();
+
+    Assert.assertArrayEquals (new String [] {"theString", "theInteger", "setMethodString()"}, accessor.getMembers ());
+
+    this.loader_.loadClass ("sample.Values$Nested$$MetadataAccessor");
+  }
+
+  @Test(expected = ClassNotFoundException.class)
+  public void testPrivateClassNotGenerated () throws Exception
+  {
+    this.loader_.loadClass ("sample.Values$Hidden$$MetadataAccessor");
+  }
+
+  @Test
+  public void testBindWithAccessor () throws Exception
+  {
+    HashMap <String, Object> values = new HashMap<> ();
+    values.put ("metadata.string", "Hello, World!");
+    values.put ("metadata.integer", 5);
+
+    MetadataBinder binder = new MetadataBinder (new MapMetadataSource (values), null, this.loader_);
+
+    Class <?> clazz = this.loader_.loadClass ("sample.Values");
+    Object target = clazz.getDeclaredConstructor ().newInstance ();
+
+    binder.bind (target);
+
+    Assert.assertEquals ("Hello, World!", clazz.getField ("theString").get (target));
+    Assert.assertEquals (5, clazz.getField ("theInteger").get (target));
+    Assert.assertEquals ("Hello, World!", clazz.getField ("methodString").get (target));
+  }
+
+  @Test
+  public void testAccessorMatchesReflection () throws Exception
+  {
+    // The accessor must accept and reject the same values as Field.set ().
+    Object [] values = {5, 5L, 3.9f, (short)2, (byte)1, 'c', true, null, "5"};
+
+    for (Object value : values)
+    {
+      Assert.assertEquals (String.valueOf (value),
+                           setReflective ("sample.Values", "theInteger", value),
+                           bind ("sample.Values", "theInteger", value));
+
+      Assert.assertEquals (String.valueOf (value),
+                           setReflective ("sample.Values$Nested", "theLong", value),
+                           bind ("sample.Values$Nested", "theLong", value));
+    }
+  }
+
+  /**
+   * Bind the value through the generated accessor, and return the value of
+   * the field or the type of the exception.
+   */
+  private Object bind (String className, String fieldName, Object value) throws Exception
+  {
+    HashMap <String, Object> values = new HashMap<> ();
+    values.put ("metadata.integer", value);
+
+    MetadataBinder binder = new MetadataBinder (new MapMetadataSource (values), null, this.loader_);
+
+    Class <?> clazz = this.loader_.loadClass (className);
+    Object target = clazz.getDeclaredConstructor ().newInstance ();
+
+    try
+    {
+      binder.bind (target);
+      return clazz.getField (fieldName).get (target);
+    }
+    catch (IllegalArgumentException e)
+    {
+      return IllegalArgumentException.class;
+    }
+  }
+
+  /**
+   * Set the value with Field.set (), and return the value of the field or
+   * the type of the exception.
+   */
+  private Object setReflective (String className, String fieldName, Object value) throws Exception
+  {
+    Class <?> clazz = this.loader_.loadClass (className);
+    Object target = clazz.getDeclaredConstructor ().newInstance ();
+
+    try
+    {
+      clazz.getField (fieldName).set (target, value);
+      return clazz.getField (fieldName).get (target);
+    }
+    catch (IllegalArgumentException e)
+    {
+      return IllegalArgumentException.class;
+    }
+  }
+}
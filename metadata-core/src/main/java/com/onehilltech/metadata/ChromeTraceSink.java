@@ -0,0 +1,183 @@
+/**
+ * Copyright (C) 2013, James H. Hill
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.onehilltech.metadata;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+
+/**
+ * Trace sink that writes spans to a file in the Chrome JSON trace format.
+ * The file can be opened in chrome://tracing or ui.perfetto.dev. The sink
+ * does not depend on the Android runtime, which makes it usable from tests
+ * executed on a desktop JVM.
+ *
+ * The trace is not complete until the sink is closed.
+ */
+public class ChromeTraceSink implements TraceSink, Closeable
+{
+  /// Process id reported for all events.
+  private static final int PID = 1;
+
+  private final Writer writer_;
+
+  /// Time origin for the trace, in nanoseconds.
+  private final long origin_;
+
+  private boolean first_ = true;
+
+  private boolean closed_ = false;
+
+  /**
+   * Open a trace file. An existing file is overwritten.
+   *
+   * @param file          Target trace file
+   * @throws IOException
+   */
+  public ChromeTraceSink (File file)
+      throws IOException
+  {
+    this.writer_ = new BufferedWriter (new OutputStreamWriter (new FileOutputStream (file), "UTF-8"));
+    this.origin_ = System.nanoTime ();
+
+    this.writer_.write ("{\"traceEvents\":[");
+  }
+
+  @Override
+  public synchronized boolean isEnabled ()
+  {
+    return !this.closed_;
+  }
+
+  @Override
+  public void beginSection (String name)
+  {
+    this.writeEvent ("B", name);
+  }
+
+  @Override
+  public void endSection ()
+  {
+    this.writeEvent ("E", null);
+  }
+
+  @Override
+  public synchronized void close ()
+      throws IOException
+  {
+    if (this.closed_)
+      return;
+
+    this.closed_ = true;
+
+    try
+    {
+      this.writer_.write ("\n]}\n");
+    }
+    finally
+    {
+      this.writer_.close ();
+    }
+  }
+
+  /**
+   * Append a single event to the trace.
+   *
+   * @param phase         Event phase
+   * @param name          Event name, or null
+   */
+  private synchronized void writeEvent (String phase, String name)
+  {
+    if (this.closed_)
+      return;
+
+    long ts = (System.nanoTime () - this.origin_) / 1000;
+    StringBuilder event = new StringBuilder (this.first_ ? "\n" : ",\n");
+
+    event.append ("{\"ph\":\"").append (phase).append ('"');
+
+    if (name != null)
+    {
+      event.append (",\"name\":");
+      appendJsonString (event, name);
+    }
+
+    event.append (",\"ts\":").append (ts)
+         .append (",\"pid\":").append (PID)
+         .append (",\"tid\":").append (Thread.currentThread ().getId ())
+         .append ('}');
+
+    try
+    {
+      this.writer_.write (event.toString ());
+      this.first_ = false;
+    }
+    catch (IOException e)
+    {
+      throw new IllegalStateException ("Failed to write trace event", e);
+    }
+  }
+
+  /**
+   * Append a quoted and escaped JSON string.
+   */
+  private static void appendJsonString (StringBuilder builder, String str)
+  {
+    builder.append ('"');
+
+    for (int i = 0; i < str.length (); ++ i)
+    {
+      char ch = str.charAt (i);
+
+      switch (ch)
+      {
+        case '"':
+          builder.append ("\\\"");
+          break;
+
+        case '\\':
+          builder.append ("\\\\");
+          break;
+
+        case '\n':
+          builder.append ("\\n");
+          break;
+
+        case '\r':
+          builder.append ("\\r");
+          break;
+
+        case '\t':
+          builder.append ("\\t");
+          break;
+
+        default:
+          if (ch < 0x20)
+            builder.append (String.format ("\\u%04x", (int) ch));
+          else
+            builder.append (ch);
+      }
+    }
+
+    builder.append ('"');
+  }
+}
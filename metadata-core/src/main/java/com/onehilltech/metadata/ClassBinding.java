@@ -0,0 +1,424 @@
+/**
+ * Copyright (C) 2013, James H. Hill
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.onehilltech.metadata;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The compiled form of a class with @MetadataProperty and @MetadataMethod
+ * annotations. Compiling a class scans its members and reads the annotations
+ * once. Each annotated member becomes a Member object that holds the resolved
+ * meta-data name, the value type, and the means of assigning the value. If
+ * the metadata-compiler annotation processor generated a MetadataAccessor
+ * for the class that declares the member, the value is assigned through the
+ * accessor. Otherwise, the value is assigned using reflection. The compiled
+ * classes are cached so the cost of compiling is paid once per class.
+ */
+final class ClassBinding
+{
+  /**
+   * A bound member of the class.
+   */
+  static abstract class Member
+  {
+    /// Name of the meta-data value.
+    final String name;
+
+    final boolean fromResource;
+
+    final ResourceType resourceType;
+
+    /// Type of the value assigned to the member.
+    final Class <?> valueType;
+
+    /// Name of the trace span for binding the member.
+    final String spanName;
+
+    Member (Class <?> clazz,
+            String memberName,
+            String name,
+            boolean fromResource,
+            ResourceType resourceType,
+            Class <?> valueType)
+    {
+      this.name = name;
+      this.fromResource = fromResource;
+      this.resourceType = resourceType;
+      this.valueType = valueType;
+      this.spanName = "bind:" + name + " -> " + clazz.getName () + "." + memberName;
+    }
+
+    /**
+     * Assign a value to the member of the target object.
+     */
+    abstract void set (Object target, Object value)
+        throws IllegalAccessException, InvocationTargetException;
+  }
+
+  private static final class FieldMember extends Member
+  {
+    private final Field field_;
+
+    FieldMember (Class <?> clazz, Field field, String name, MetadataProperty annotation)
+    {
+      super (clazz, field.getName (), name, annotation.fromResource (), annotation.resourceType (), field.getType ());
+
+      this.field_ = field;
+      this.field_.setAccessible (true);
+    }
+
+    @Override
+    void set (Object target, Object value)
+        throws IllegalAccessException
+    {
+      this.field_.set (target, value);
+    }
+  }
+
+  private static final class MethodMember extends Member
+  {
+    private final Method method_;
+
+    MethodMember (Class <?> clazz, Method method, MetadataMethod annotation)
+    {
+      super (clazz, method.getName (), annotation.name (), annotation.fromResource (), annotation.resourceType (), method.getParameterTypes ()[0]);
+
+      this.method_ = method;
+      this.method_.setAccessible (true);
+    }
+
+    @Override
+    void set (Object target, Object value)
+        throws IllegalAccessException, InvocationTargetException
+    {
+      this.method_.invoke (target, value);
+    }
+  }
+
+  private static final class AccessorMember extends Member
+  {
+    private final MetadataAccessor <Object> accessor_;
+
+    private final int index_;
+
+    AccessorMember (Class <?> clazz,
+                    String memberName,
+                    String name,
+                    boolean fromResource,
+                    ResourceType resourceType,
+                    Class <?> valueType,
+                    MetadataAccessor <Object> accessor,
+                    int index)
+    {
+      super (clazz, memberName, name, fromResource, resourceType, valueType);
+
+      this.accessor_ = accessor;
+      this.index_ = index;
+    }
+
+    @Override
+    void set (Object target, Object value)
+    {
+      // The generated accessor casts the value to the exact type of the member.
+      // Convert the value first so the accessor accepts and rejects the same
+      // values as Field.set () and Method.invoke ().
+      this.accessor_.set (target, this.index_, convert (this.valueType, value));
+    }
+  }
+
+  /// Primitive types ordered by the widening conversions allowed between
+  /// them. A value can be widened to a type with a higher rank.
+  private static final List <Class <?>> NUMERIC_RANKS =
+      Arrays.<Class <?>> asList (byte.class, short.class, int.class, long.class, float.class, double.class);
+
+  private static final List <Class <?>> NUMERIC_WRAPPERS =
+      Arrays.<Class <?>> asList (Byte.class, Short.class, Integer.class, Long.class, Float.class, Double.class);
+
+  /**
+   * Convert a value to the type of a member using the same rules as
+   * Field.set (): a reference value must be an instance of the type, and a
+   * primitive value is unboxed and widened. The result is boxed in the
+   * wrapper of the primitive type.
+   *
+   * @param type        Type of the member
+   * @param value       Value to assign
+   * @return            The converted value
+   * @throws IllegalArgumentException     The value cannot be assigned
+   */
+  static Object convert (Class <?> type, Object value)
+  {
+    if (!type.isPrimitive ())
+    {
+      if (value != null && !type.isInstance (value))
+        throw new IllegalArgumentException ("Cannot assign " + value.getClass ().getName () + " to " + type.getName ());
+
+      return value;
+    }
+
+    if (value == null)
+      throw new IllegalArgumentException ("Cannot assign null to " + type.getName ());
+
+    if (type == boolean.class)
+    {
+      if (value instanceof Boolean)
+        return value;
+    }
+    else if (type == char.class)
+    {
+      if (value instanceof Character)
+        return value;
+    }
+    else
+    {
+      int targetRank = NUMERIC_RANKS.indexOf (type);
+      Number number;
+      int sourceRank;
+
+      if (value instanceof Character)
+      {
+        // A char can be widened to an int, or to a type with a higher rank.
+        number = (int) (Character) value;
+        sourceRank = NUMERIC_RANKS.indexOf (int.class);
+      }
+      else
+      {
+        sourceRank = NUMERIC_WRAPPERS.indexOf (value.getClass ());
+        number = sourceRank != -1 ? (Number) value : null;
+      }
+
+      if (sourceRank != -1 && sourceRank <= targetRank)
+      {
+        switch (targetRank)
+        {
+          case 0: return number.byteValue ();
+          case 1: return number.shortValue ();
+          case 2: return number.intValue ();
+          case 3: return number.longValue ();
+          case 4: return number.floatValue ();
+          default: return number.doubleValue ();
+        }
+      }
+    }
+
+    throw new IllegalArgumentException ("Cannot assign " + value.getClass ().getName () + " to " + type.getName ());
+  }
+
+  /**
+   * The generated accessor of a class, and the index of each of its members.
+   */
+  private static final class Accessor
+  {
+    final MetadataAccessor <Object> accessor;
+
+    final Map <String, Integer> indices = new HashMap<> ();
+
+    Accessor (MetadataAccessor <Object> accessor)
+    {
+      this.accessor = accessor;
+
+      String [] keys = accessor.getMembers ();
+
+      for (int i = 0; i < keys.length; ++ i)
+        this.indices.put (keys[i], i);
+    }
+  }
+
+  /// Cache of the compiled classes. The compiled members hold the Field and
+  /// Method objects of the class, which reference the class, so a weak map
+  /// would not release them either. A compiled class is kept for the life of
+  /// the process, which is the life of an application's classes on Android.
+  private static final Map <Class <?>, ClassBinding> bindings_ = new HashMap<> ();
+
+  private final Member [] members_;
+
+  /**
+   * Get the compiled form of a class. The class is compiled the first time
+   * it is requested.
+   *
+   * @param clazz       Target class
+   * @return
+   */
+  static ClassBinding get (Class <?> clazz)
+  {
+    synchronized (bindings_)
+    {
+      ClassBinding binding = bindings_.get (clazz);
+
+      if (binding == null)
+      {
+        binding = compile (clazz);
+        bindings_.put (clazz, binding);
+      }
+
+      return binding;
+    }
+  }
+
+  /**
+   * Compile a class without consulting the cache.
+   *
+   * @param clazz       Target class
+   * @return
+   */
+  static ClassBinding compile (Class <?> clazz)
+  {
+    return compile (clazz, true);
+  }
+
+  /**
+   * Compile a class without consulting the cache.
+   *
+   * @param clazz           Target class
+   * @param useAccessors    Use the generated accessors, if any
+   * @return
+   */
+  static ClassBinding compile (Class <?> clazz, boolean useAccessors)
+  {
+    boolean tracing = MetadataTrace.isEnabled ();
+
+    if (tracing)
+      MetadataTrace.beginSection ("ClassBinding.compile:" + clazz.getName ());
+
+    try
+    {
+      ArrayList <Member> members = new ArrayList<> ();
+
+      // The generated accessors of the classes that declare the members. The
+      // accessor of a class only covers the members declared by the class.
+      Map <Class <?>, Accessor> accessors = new HashMap<> ();
+
+      for (Field field : clazz.getFields ())
+      {
+        MetadataProperty annotation = field.getAnnotation (MetadataProperty.class);
+
+        if (annotation == null)
+          continue;
+
+        // If the meta-data name is an empty string, use the field name.
+        String name = annotation.name ();
+
+        if (name.equals (""))
+          name = field.getName ();
+
+        Accessor accessor = useAccessors ? getAccessor (accessors, field.getDeclaringClass ()) : null;
+        Integer index = accessor != null ? accessor.indices.get (field.getName ()) : null;
+
+        if (index != null)
+          members.add (new AccessorMember (clazz, field.getName (), name, annotation.fromResource (), annotation.resourceType (), field.getType (), accessor.accessor, index));
+        else
+          members.add (new FieldMember (clazz, field, name, annotation));
+      }
+
+      for (Method method : clazz.getMethods ())
+      {
+        // For methods, the meta-data name is required.
+        MetadataMethod annotation = method.getAnnotation (MetadataMethod.class);
+
+        if (annotation == null)
+          continue;
+
+        Accessor accessor = useAccessors ? getAccessor (accessors, method.getDeclaringClass ()) : null;
+        Integer index = accessor != null ? accessor.indices.get (method.getName () + "()") : null;
+
+        if (index != null)
+          members.add (new AccessorMember (clazz, method.getName (), annotation.name (), annotation.fromResource (), annotation.resourceType (), method.getParameterTypes ()[0], accessor.accessor, index));
+        else
+          members.add (new MethodMember (clazz, method, annotation));
+      }
+
+      return new ClassBinding (members.toArray (new Member[members.size ()]));
+    }
+    finally
+    {
+      if (tracing)
+        MetadataTrace.endSection ();
+    }
+  }
+
+  private static Accessor getAccessor (Map <Class <?>, Accessor> accessors, Class <?> clazz)
+  {
+    if (accessors.containsKey (clazz))
+      return accessors.get (clazz);
+
+    MetadataAccessor <Object> accessor = loadAccessor (clazz);
+    Accessor result = accessor != null ? new Accessor (accessor) : null;
+
+    accessors.put (clazz, result);
+
+    return result;
+  }
+
+  /**
+   * Load the generated accessor for a class. A class without a generated
+   * accessor, or whose accessor cannot be created, is bound using reflection.
+   *
+   * @param clazz       Target class
+   * @return            The accessor, or null
+   */
+  @SuppressWarnings ("unchecked")
+  private static MetadataAccessor <Object> loadAccessor (Class <?> clazz)
+  {
+    // The exceptions are caught separately because ReflectiveOperationException
+    // does not exist on older versions of Android.
+    try
+    {
+      Class <?> accessorClass = Class.forName (clazz.getName () + MetadataAccessor.SUFFIX, true, clazz.getClassLoader ());
+      return (MetadataAccessor <Object>) accessorClass.getDeclaredConstructor ().newInstance ();
+    }
+    catch (ClassNotFoundException e)
+    {
+      return null;
+    }
+    catch (NoSuchMethodException e)
+    {
+      return null;
+    }
+    catch (InstantiationException e)
+    {
+      return null;
+    }
+    catch (IllegalAccessException e)
+    {
+      return null;
+    }
+    catch (InvocationTargetException e)
+    {
+      return null;
+    }
+  }
+
+  private ClassBinding (Member [] members)
+  {
+    this.members_ = members;
+  }
+
+  /**
+   * Get the bound members. Fields are listed before methods.
+   */
+  Member [] getMembers ()
+  {
+    return this.members_;
+  }
+}
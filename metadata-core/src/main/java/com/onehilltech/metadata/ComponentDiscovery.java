@@ -0,0 +1,374 @@
+/**
+ * Copyright (C) 2013, James H. Hill
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.onehilltech.metadata;
+
+import java.lang.reflect.InvocationTargetException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Discovers components registered in meta-data, and initializes them in
+ * dependency order. Each meta-data value whose name starts with a prefix
+ * names a ComponentInitializer class:
+ *
+ * <pre>
+ * &lt;meta-data android:name="com.vendor.component.analytics"
+ *            android:value="com.vendor.analytics.AnalyticsInitializer" /&gt;
+ * </pre>
+ *
+ * The dependencies declared with @MetadataComponent are discovered as well,
+ * even if they are not registered. Calling start () submits the initializers
+ * to an executor. An initializer is submitted once all its dependencies have
+ * completed, so independent components are initialized in parallel. Lazy
+ * components are not initialized until they are requested with get (), or
+ * until a component that depends on them is initialized.
+ *
+ * @param <C>       Type of the context passed to the initializers
+ */
+public class ComponentDiscovery <C>
+{
+  private final C context_;
+
+  private final Executor executor_;
+
+  private final LinkedHashMap <Class <?>, Node> nodes_ = new LinkedHashMap<> ();
+
+  /**
+   * Discover the components registered under a prefix.
+   *
+   * @param source          Source of the meta-data values
+   * @param prefix          Prefix of the registrar names
+   * @param classLoader     Class loader for the initializer classes
+   * @param context         Context passed to the initializers
+   * @param executor        Executor that runs the initializers
+   * @throws ClassNotFoundException
+   */
+  public ComponentDiscovery (MetadataSource source,
+                             String prefix,
+                             ClassLoader classLoader,
+                             C context,
+                             Executor executor)
+      throws ClassNotFoundException
+  {
+    this.context_ = context;
+    this.executor_ = executor;
+
+    boolean tracing = MetadataTrace.isEnabled ();
+
+    if (tracing)
+      MetadataTrace.beginSection ("ComponentDiscovery:" + prefix);
+
+    try
+    {
+      for (String name : source.names ())
+      {
+        if (name.startsWith (prefix))
+          this.addNode (classLoader.loadClass ((String)source.get (name)));
+      }
+
+      this.checkForCycles ();
+    }
+    finally
+    {
+      if (tracing)
+        MetadataTrace.endSection ();
+    }
+  }
+
+  /**
+   * Get the initializer classes of the discovered components.
+   */
+  public Set <Class <?>> getComponents ()
+  {
+    return Collections.unmodifiableSet (this.nodes_.keySet ());
+  }
+
+  /**
+   * Start initializing the components that are not lazy. The method does
+   * not wait for the initializers to complete.
+   */
+  public void start ()
+  {
+    for (Node node : this.nodes_.values ())
+    {
+      if (!node.lazy)
+        node.request ();
+    }
+  }
+
+  /**
+   * Wait for the components that are not lazy to complete initialization.
+   *
+   * @throws InterruptedException
+   * @throws ExecutionException       An initializer failed
+   */
+  public void awaitStartup ()
+      throws InterruptedException, ExecutionException
+  {
+    for (Node node : this.nodes_.values ())
+    {
+      if (!node.lazy)
+        node.await ();
+    }
+  }
+
+  /**
+   * Get the initializer of a component. If the component is not initialized,
+   * it is initialized with its dependencies, and the method waits for it to
+   * complete. The method must not be called from an initializer to request
+   * a component that is not one of its dependencies.
+   *
+   * @param type            The initializer class
+   * @return                The initializer object
+   * @throws InterruptedException
+   * @throws ExecutionException       The initializer failed
+   */
+  public <T> T get (Class <T> type)
+      throws InterruptedException, ExecutionException
+  {
+    Node node = this.nodes_.get (type);
+
+    if (node == null)
+      throw new IllegalArgumentException (type.getName () + " is not a discovered component");
+
+    node.request ();
+    node.await ();
+
+    return type.cast (node.initializer);
+  }
+
+  /**
+   * Add a node for an initializer class and its dependencies. The initializer
+   * is not created until it runs, so discovering a lazy component does not
+   * run its constructor.
+   */
+  private Node addNode (Class <?> clazz)
+  {
+    Node node = this.nodes_.get (clazz);
+
+    if (node != null)
+      return node;
+
+    if (!ComponentInitializer.class.isAssignableFrom (clazz))
+      throw new IllegalArgumentException (clazz.getName () + " does not implement ComponentInitializer");
+
+    MetadataComponent annotation = clazz.getAnnotation (MetadataComponent.class);
+    boolean lazy = annotation != null && annotation.lazy ();
+
+    node = new Node (clazz, lazy);
+    this.nodes_.put (clazz, node);
+
+    if (annotation != null)
+    {
+      for (Class <?> dependencyClass : annotation.dependsOn ())
+      {
+        Node dependency = this.addNode (dependencyClass);
+
+        node.dependencies.add (dependency);
+        dependency.dependents.add (node);
+      }
+    }
+
+    node.pending.set (node.dependencies.size ());
+
+    return node;
+  }
+
+  /**
+   * Make sure the dependency graph does not have a cycle.
+   */
+  private void checkForCycles ()
+  {
+    HashSet <Node> visited = new HashSet<> ();
+
+    for (Node node : this.nodes_.values ())
+      this.checkForCycles (node, new HashSet <Node> (), visited);
+  }
+
+  private void checkForCycles (Node node, Set <Node> path, Set <Node> visited)
+  {
+    if (path.contains (node))
+      throw new IllegalStateException ("Dependency cycle at " + node.type.getName ());
+
+    if (!visited.add (node))
+      return;
+
+    path.add (node);
+
+    for (Node dependency : node.dependencies)
+      this.checkForCycles (dependency, path, visited);
+
+    path.remove (node);
+  }
+
+  /**
+   * A component in the dependency graph.
+   */
+  private final class Node implements Runnable
+  {
+    /// The initializer class.
+    final Class <?> type;
+
+    /// The initializer, which is created when the node runs.
+    volatile ComponentInitializer <C> initializer;
+
+    final boolean lazy;
+
+    final List <Node> dependencies = new ArrayList<> ();
+
+    final List <Node> dependents = new ArrayList<> ();
+
+    /// Number of dependencies that have not completed.
+    final AtomicInteger pending = new AtomicInteger ();
+
+    final AtomicBoolean requested = new AtomicBoolean ();
+
+    final AtomicBoolean submitted = new AtomicBoolean ();
+
+    final CountDownLatch done = new CountDownLatch (1);
+
+    volatile Throwable failure;
+
+    Node (Class <?> type, boolean lazy)
+    {
+      this.type = type;
+      this.lazy = lazy;
+    }
+
+    /**
+     * Request the component, and its dependencies, to be initialized.
+     */
+    void request ()
+    {
+      if (!this.requested.compareAndSet (false, true))
+        return;
+
+      for (Node dependency : this.dependencies)
+        dependency.request ();
+
+      this.submitIfReady ();
+    }
+
+    /**
+     * Submit the initializer once it is requested and all its dependencies
+     * have completed.
+     */
+    void submitIfReady ()
+    {
+      if (!this.requested.get () || this.pending.get () != 0 || !this.submitted.compareAndSet (false, true))
+        return;
+
+      try
+      {
+        executor_.execute (this);
+      }
+      catch (RejectedExecutionException e)
+      {
+        // The initializer will never run. Complete the node with the failure
+        // so the threads waiting on it, and its dependents, do not hang.
+        this.failure = e;
+        this.complete ();
+      }
+    }
+
+    void await ()
+        throws InterruptedException, ExecutionException
+    {
+      this.done.await ();
+
+      if (this.failure != null)
+        throw new ExecutionException (this.type.getName () + " failed", this.failure);
+    }
+
+    @Override
+    public void run ()
+    {
+      // A component cannot be initialized if one of its dependencies failed.
+      for (Node dependency : this.dependencies)
+      {
+        if (dependency.failure != null)
+        {
+          this.failure = new IllegalStateException (dependency.type.getName () + " failed", dependency.failure);
+          break;
+        }
+      }
+
+      if (this.failure == null)
+      {
+        boolean tracing = MetadataTrace.isEnabled ();
+
+        if (tracing)
+          MetadataTrace.beginSection ("initialize:" + this.type.getName ());
+
+        try
+        {
+          this.initializer = this.newInitializer ();
+          this.initializer.initialize (context_);
+        }
+        catch (InvocationTargetException e)
+        {
+          // The constructor of the initializer failed.
+          this.failure = e.getCause ();
+        }
+        catch (Throwable e)
+        {
+          this.failure = e;
+        }
+        finally
+        {
+          if (tracing)
+            MetadataTrace.endSection ();
+        }
+      }
+
+      this.complete ();
+    }
+
+    @SuppressWarnings ("unchecked")
+    private ComponentInitializer <C> newInitializer ()
+        throws NoSuchMethodException, InstantiationException, IllegalAccessException,
+        InvocationTargetException
+    {
+      return (ComponentInitializer <C>)this.type.getDeclaredConstructor ().newInstance ();
+    }
+
+    /**
+     * Mark the node as done, and submit the dependents that are ready.
+     */
+    private void complete ()
+    {
+      this.done.countDown ();
+
+      for (Node dependent : this.dependents)
+      {
+        if (dependent.pending.decrementAndGet () == 0)
+          dependent.submitIfReady ();
+      }
+    }
+  }
+}
@@ -0,0 +1,38 @@
+/**
+ * Copyright (C) 2013, James H. Hill
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.onehilltech.metadata;
+
+/**
+ * Initializer for a component discovered by ComponentDiscovery. The class
+ * of the initializer is named by a meta-data value, and must have a public
+ * default constructor. Use the @MetadataComponent annotation to declare the
+ * dependencies of the initializer, and whether it is lazy.
+ *
+ * @param <C>       Type of the context passed to the initializer
+ */
+public interface ComponentInitializer <C>
+{
+  /**
+   * Initialize the component. The initializers of the dependencies have
+   * completed when this method is called. The method can be called on any
+   * thread.
+   *
+   * @param context     The context
+   */
+  void initialize (C context) throws Exception;
+}
@@ -0,0 +1,59 @@
+/**
+ * Copyright (C) 2013, James H. Hill
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.onehilltech.metadata;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * MetadataSource that stores its values in memory.
+ */
+public class MapMetadataSource implements MetadataSource
+{
+  private final Map <String, Object> values_;
+
+  /**
+   * Create a source from a copy of a map.
+   *
+   * @param values        Map of values
+   */
+  public MapMetadataSource (Map <String, ?> values)
+  {
+    this.values_ = new HashMap<> (values);
+  }
+
+  @Override
+  public boolean contains (String name)
+  {
+    return this.values_.containsKey (name);
+  }
+
+  @Override
+  public Object get (String name)
+  {
+    return this.values_.get (name);
+  }
+
+  @Override
+  public Set <String> names ()
+  {
+    return Collections.unmodifiableSet (this.values_.keySet ());
+  }
+}
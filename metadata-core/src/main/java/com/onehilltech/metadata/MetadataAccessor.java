@@ -0,0 +1,53 @@
+/**
+ * Copyright (C) 2013, James H. Hill
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.onehilltech.metadata;
+
+/**
+ * Accessor for the annotated members of a class that is generated at build
+ * time by the metadata-compiler annotation processor. The accessor assigns
+ * values to the members with direct field assignments and method calls
+ * instead of reflection. The generated class is named after the binary name
+ * of the target class followed by {@link #SUFFIX}, and is in the same package
+ * as the target class.
+ *
+ * Members that the accessor does not cover, such as private members or
+ * members inherited from a class without an accessor, are still bound
+ * using reflection.
+ */
+public interface MetadataAccessor <T>
+{
+  /// Suffix appended to the binary name of the target class.
+  String SUFFIX = "$$MetadataAccessor";
+
+  /**
+   * Get the keys of the members covered by the accessor. The position of a
+   * key is the index passed to {@link #set}. The key of a field is its name,
+   * and the key of a method is its name followed by "()".
+   *
+   * @return
+   */
+  String [] getMembers ();
+
+  /**
+   * Assign a value to a member of the target object.
+   *
+   * @param target        Target object
+   * @param index         Index of the member
+   * @param value         Value to assign
+   */
+  void set (T target, int index, Object value);
+}
@@ -0,0 +1,225 @@
+/**
+ * Copyright (C) 2013, James H. Hill
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.onehilltech.metadata;
+
+import java.lang.reflect.InvocationTargetException;
+
+/**
+ * The annotation binding engine. The engine reads values from a
+ * MetadataSource, resolves resource values through a ResourceResolver,
+ * loads classes named by the values, and assigns the values to the members
+ * of objects annotated with @MetadataProperty and @MetadataMethod.
+ *
+ * The engine does not depend on the Android runtime. ManifestMetadata is
+ * the Android adapter for the engine.
+ */
+public class MetadataBinder
+{
+  private final MetadataSource source_;
+
+  private final ResourceResolver resolver_;
+
+  private final ClassLoader classLoader_;
+
+  /**
+   * Initializing constructor.
+   *
+   * @param source          Source of the values
+   * @param resolver        Resolver for resource values, or null if the
+   *                        source does not contain resource values
+   * @param classLoader     Class loader for the classes named by the values
+   */
+  public MetadataBinder (MetadataSource source, ResourceResolver resolver, ClassLoader classLoader)
+  {
+    this.source_ = source;
+    this.resolver_ = resolver;
+    this.classLoader_ = classLoader;
+  }
+
+  /**
+   * Get the source of the values.
+   */
+  public MetadataSource getSource ()
+  {
+    return this.source_;
+  }
+
+  /**
+   * Assign the values from the source to the annotated members of the
+   * target object. Members whose value is not defined in the source are
+   * not changed.
+   *
+   * @param         target          Instance of object with annotated class
+   */
+  public void bind (Object target)
+      throws IllegalArgumentException, IllegalAccessException, ClassNotFoundException,
+      InvocationTargetException
+  {
+    // Get the compiled form of the class. It contains the fields with the
+    // @MetadataProperty annotation, followed by the methods with the
+    // @MetadataMethod annotation.
+    this.bind (target, ClassBinding.get (target.getClass ()));
+  }
+
+  /**
+   * Assign the values from the source to the target object using the given
+   * compiled form of its class.
+   *
+   * @param         target          Instance of object with annotated class
+   * @param         binding         Compiled form of the target class
+   */
+  void bind (Object target, ClassBinding binding)
+      throws IllegalArgumentException, IllegalAccessException, ClassNotFoundException,
+      InvocationTargetException
+  {
+    boolean tracing = MetadataTrace.isEnabled ();
+
+    if (tracing)
+      MetadataTrace.beginSection ("initFromMetadata:" + target.getClass ().getName ());
+
+    try
+    {
+      for (ClassBinding.Member member : binding.getMembers ())
+      {
+        // Make sure that the source does contain the target name before,
+        // or there is no need to continue at this point.
+        if (!this.source_.contains (member.name))
+          continue;
+
+        if (tracing)
+          MetadataTrace.beginSection (member.spanName);
+
+        try
+        {
+          // Load the value from the source.
+          Object theValue =
+              this.getValue (member.name,
+                             member.fromResource,
+                             member.resourceType,
+                             member.valueType);
+
+          // Finally, we can set the value!
+          member.set (target, theValue);
+        }
+        finally
+        {
+          if (tracing)
+            MetadataTrace.endSection ();
+        }
+      }
+    }
+    finally
+    {
+      if (tracing)
+        MetadataTrace.endSection ();
+    }
+  }
+
+  /**
+   * Load a value from the source. The returned value is an Object of the
+   * correct type. It is the responsibility of the caller to convert the
+   * returned object to the correct type.
+   *
+   * For classes, the return object is the loaded Class object.
+   *
+   * @param      targetName       Name of value in the source
+   * @param      fromResource     The value is a resource id
+   * @param      rcType           Type of the resource
+   * @param      typeInfo         Type information about the target property
+   * @return
+   */
+  public Object getValue (String targetName,
+                          boolean fromResource,
+                          ResourceType rcType,
+                          Class <?> typeInfo)
+      throws ClassNotFoundException, IllegalArgumentException,
+      IllegalAccessException, InvocationTargetException
+  {
+    boolean tracing = MetadataTrace.isEnabled ();
+
+    if (tracing)
+      MetadataTrace.beginSection ("getValue:" + targetName + " -> " + typeInfo.getName ());
+
+    try
+    {
+      return this.getValueImpl (targetName, fromResource, rcType, typeInfo);
+    }
+    finally
+    {
+      if (tracing)
+        MetadataTrace.endSection ();
+    }
+  }
+
+  /**
+   * Implementation of getValue ().
+   */
+  private Object getValueImpl (String targetName,
+                               boolean fromResource,
+                               ResourceType rcType,
+                               Class <?> typeInfo)
+      throws ClassNotFoundException, IllegalArgumentException,
+      IllegalAccessException, InvocationTargetException
+  {
+    Object theValue = this.source_.get (targetName);
+    boolean tracing = MetadataTrace.isEnabled ();
+
+    // The current value that we are reading from the source is actually
+    // a resource id. We therefore need to convert the value to an Integer
+    // so we can load it from the the resources.
+    if (fromResource)
+    {
+      if (this.resolver_ == null)
+        throw new IllegalStateException ("Cannot resolve resource for " + targetName);
+
+      Integer rcid = (Integer)theValue;
+
+      if (tracing)
+        MetadataTrace.beginSection ("Resources:" + targetName + " -> " + rcType);
+
+      try
+      {
+        theValue = this.resolver_.resolve (rcid, rcType, typeInfo);
+      }
+      finally
+      {
+        if (tracing)
+          MetadataTrace.endSection ();
+      }
+    }
+
+    if (typeInfo.equals (Class.class))
+    {
+      // The value is a Class object. Let's load the class object.
+      if (tracing)
+        MetadataTrace.beginSection ("loadClass:" + theValue);
+
+      try
+      {
+        theValue = this.classLoader_.loadClass ((String)theValue);
+      }
+      finally
+      {
+        if (tracing)
+          MetadataTrace.endSection ();
+      }
+    }
+
+    return theValue;
+  }
+}
@@ -0,0 +1,51 @@
+/**
+ * Copyright (C) 2013, James H. Hill
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.onehilltech.metadata;
+
+import java.util.Set;
+
+/**
+ * Source of meta-data values for the binding engine. On Android, the source
+ * is the meta-data Bundle of the application or a component. Other sources
+ * make it possible to use the engine outside of an Android device.
+ *
+ * The value of an element that refers to a resource is the resource id,
+ * as an Integer.
+ */
+public interface MetadataSource
+{
+  /**
+   * Test if the source defines a value.
+   *
+   * @param name        Name of the meta-data element
+   */
+  boolean contains (String name);
+
+  /**
+   * Get a value from the source.
+   *
+   * @param name        Name of the meta-data element
+   * @return            The value, or null if it is not defined
+   */
+  Object get (String name);
+
+  /**
+   * Get the names of all the values in the source.
+   */
+  Set <String> names ();
+}
@@ -0,0 +1,104 @@
+/**
+ * Copyright (C) 2013, James H. Hill
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.onehilltech.metadata;
+
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Entry point for the trace spans emitted by the library. Spans are
+ * forwarded to every installed TraceSink. No sink is installed by default,
+ * so tracing costs nothing until the application or a test installs one,
+ * such as an AndroidTraceSink or a ChromeTraceSink.
+ *
+ * Callers must check isEnabled () before building a span name, and must
+ * only call endSection () for the spans they began.
+ */
+public final class MetadataTrace
+{
+  private static final CopyOnWriteArrayList <TraceSink> sinks_ = new CopyOnWriteArrayList<> ();
+
+  private MetadataTrace ()
+  {
+
+  }
+
+  /**
+   * Install a trace sink.
+   *
+   * @param sink        The trace sink
+   */
+  public static void addSink (TraceSink sink)
+  {
+    sinks_.addIfAbsent (sink);
+  }
+
+  /**
+   * Remove a trace sink.
+   *
+   * @param sink        The trace sink
+   */
+  public static void removeSink (TraceSink sink)
+  {
+    sinks_.remove (sink);
+  }
+
+  /**
+   * Remove all trace sinks.
+   */
+  public static void clearSinks ()
+  {
+    sinks_.clear ();
+  }
+
+  /**
+   * Test if at least one installed sink is recording spans.
+   */
+  public static boolean isEnabled ()
+  {
+    if (sinks_.isEmpty ())
+      return false;
+
+    for (TraceSink sink : sinks_)
+    {
+      if (sink.isEnabled ())
+        return true;
+    }
+
+    return false;
+  }
+
+  /**
+   * Begin a span on the calling thread.
+   *
+   * @param name        Name of the span
+   */
+  public static void beginSection (String name)
+  {
+    for (TraceSink sink : sinks_)
+      sink.beginSection (name);
+  }
+
+  /**
+   * End the most recent span on the calling thread.
+   */
+  public static void endSection ()
+  {
+    for (TraceSink sink : sinks_)
+      sink.endSection ();
+  }
+}
@@ -0,0 +1,133 @@
+/**
+ * Copyright (C) 2013, James H. Hill
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.onehilltech.metadata;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.HashMap;
+import java.util.Properties;
+
+/**
+ * MetadataSource that loads its values from a properties file. The values
+ * are converted the same way the Android build tools convert android:value
+ * attributes: integers become Integer values, decimal numbers become Float
+ * values, true and false become Boolean values, and everything else remains
+ * a String value.
+ */
+public class PropertiesMetadataSource extends MapMetadataSource
+{
+  /**
+   * Load the values from a properties file.
+   *
+   * @param file          The properties file
+   * @throws IOException
+   */
+  public PropertiesMetadataSource (File file)
+      throws IOException
+  {
+    this (load (file));
+  }
+
+  /**
+   * Load the values from a stream in properties format. The stream is not
+   * closed.
+   *
+   * @param in            The input stream
+   * @throws IOException
+   */
+  public PropertiesMetadataSource (InputStream in)
+      throws IOException
+  {
+    this (load (in));
+  }
+
+  /**
+   * Load the values from a Properties object.
+   *
+   * @param props         The properties
+   */
+  public PropertiesMetadataSource (Properties props)
+  {
+    super (convert (props));
+  }
+
+  private static Properties load (File file)
+      throws IOException
+  {
+    try (InputStream in = new FileInputStream (file))
+    {
+      return load (in);
+    }
+  }
+
+  private static Properties load (InputStream in)
+      throws IOException
+  {
+    Properties props = new Properties ();
+    props.load (in);
+
+    return props;
+  }
+
+  private static HashMap <String, Object> convert (Properties props)
+  {
+    HashMap <String, Object> values = new HashMap<> ();
+
+    for (String name : props.stringPropertyNames ())
+      values.put (name, convertValue (props.getProperty (name)));
+
+    return values;
+  }
+
+  /**
+   * Convert a String value to the type the Android build tools would use.
+   */
+  static Object convertValue (String value)
+  {
+    if (value.equals ("true"))
+      return Boolean.TRUE;
+    else if (value.equals ("false"))
+      return Boolean.FALSE;
+
+    try
+    {
+      if (value.startsWith ("0x") || value.startsWith ("0X"))
+        return (int)Long.parseLong (value.substring (2), 16);
+      else
+        return Integer.valueOf (value);
+    }
+    catch (NumberFormatException e)
+    {
+      // The value is not an integer.
+    }
+
+    try
+    {
+      if (!value.isEmpty () && Character.isDigit (value.charAt (value.length () - 1)))
+        return Float.valueOf (value);
+    }
+    catch (NumberFormatException e)
+    {
+      // The value is not a decimal number.
+    }
+
+    return value;
+  }
+}
@@ -0,0 +1,38 @@
+/**
+ * Copyright (C) 2013, James H. Hill
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.onehilltech.metadata;
+
+import java.lang.reflect.InvocationTargetException;
+
+/**
+ * Resolves resource ids found in a MetadataSource into resource values.
+ */
+public interface ResourceResolver
+{
+  /**
+   * Resolve a resource.
+   *
+   * @param rcid            Id of the resource
+   * @param rcType          Type of the resource, or ResourceType.Auto to
+   *                        detect the type from typeInfo
+   * @param typeInfo        Type of the target
+   * @return                The resource value
+   */
+  Object resolve (int rcid, ResourceType rcType, Class <?> typeInfo)
+      throws IllegalArgumentException, IllegalAccessException, InvocationTargetException;
+}
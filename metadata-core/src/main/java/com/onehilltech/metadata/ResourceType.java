@@ -19,6 +19,18 @@ package com.onehilltech.metadata;
 /**
  * Enumeration of the different Android resource types. These values
  * are for providing a hint to the @Metadata annotation.
+ *
+ * Some resource types produce objects that own a native handle. The
+ * receiver owns the object and must release it:
+ *
+ * - Animation and Xml produce an XmlResourceParser, which must be closed.
+ * - TypedArray produces a TypedArray, which must be recycled.
+ * - Raw produces an InputStream or an AssetFileDescriptor, which must be
+ *   closed, or a read-only memory-mapped ByteBuffer, which holds no handle.
+ *
+ * Auto does not produce a TypedArray, an InputStream, or an AssetFileDescriptor.
+ * On Android, use the readXml (), readTypedArray (), and readRaw () methods of
+ * ManifestMetadata to have the library release the handle.
  */
 public enum ResourceType
 {
@@ -30,8 +42,13 @@ public enum ResourceType
   DimensionPixelOffset,
   DimensionPixelSize,
   Drawable,
+  Fraction,
   Id,
   Integer,
   IntArray,
-  String
+  Raw,
+  String,
+  StringArray,
+  TypedArray,
+  Xml
 }
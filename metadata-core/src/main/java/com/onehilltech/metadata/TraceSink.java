@@ -0,0 +1,44 @@
+/**
+ * Copyright (C) 2013, James H. Hill
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.onehilltech.metadata;
+
+/**
+ * Receiver of trace spans emitted while loading meta-data. A span is
+ * opened with beginSection () and closed with endSection () on the same
+ * thread, and spans on a thread are strictly nested.
+ */
+public interface TraceSink
+{
+  /**
+   * Test if the sink is recording spans. The library does not build span
+   * names when no sink is recording.
+   */
+  boolean isEnabled ();
+
+  /**
+   * Begin a new span on the calling thread.
+   *
+   * @param name        Name of the span
+   */
+  void beginSection (String name);
+
+  /**
+   * End the most recent span opened on the calling thread.
+   */
+  void endSection ();
+}
@@ -0,0 +1,304 @@
+/**
+ * Copyright (C) 2013, James H. Hill
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.onehilltech.metadata;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class ComponentDiscoveryTest
+{
+  public static final String PREFIX = "com.vendor.component.";
+
+  /**
+   * Context that records the order of the initializers.
+   */
+  public static class Recorder
+  {
+    private final List <String> names_ = new ArrayList<> ();
+
+    /// Released when both B and C are running at the same time.
+    final CountDownLatch parallel = new CountDownLatch (2);
+
+    synchronized void record (String name)
+    {
+      this.names_.add (name);
+    }
+
+    synchronized List <String> getNames ()
+    {
+      return new ArrayList<> (this.names_);
+    }
+  }
+
+  public static class A implements ComponentInitializer <Recorder>
+  {
+    @Override
+    public void initialize (Recorder context)
+    {
+      context.record ("A");
+    }
+  }
+
+  @MetadataComponent (dependsOn = {A.class})
+  public static class B implements ComponentInitializer <Recorder>
+  {
+    @Override
+    public void initialize (Recorder context) throws Exception
+    {
+      context.parallel.countDown ();
+
+      if (!context.parallel.await (5, TimeUnit.SECONDS))
+        throw new IllegalStateException ("B and C did not run in parallel");
+
+      context.record ("B");
+    }
+  }
+
+  @MetadataComponent (dependsOn = {A.class})
+  public static class C extends B
+  {
+
+  }
+
+  @MetadataComponent (dependsOn = {B.class}, lazy = true)
+  public static class D implements ComponentInitializer <Recorder>
+  {
+    @Override
+    public void initialize (Recorder context)
+    {
+      context.record ("D");
+    }
+  }
+
+  @MetadataComponent (dependsOn = {F.class})
+  public static class E extends A
+  {
+
+  }
+
+  @MetadataComponent (dependsOn = {E.class})
+  public static class F extends A
+  {
+
+  }
+
+  public static class G implements ComponentInitializer <Recorder>
+  {
+    @Override
+    public void initialize (Recorder context)
+    {
+      throw new IllegalStateException ("G failed");
+    }
+  }
+
+  @MetadataComponent (dependsOn = {G.class})
+  public static class H extends A
+  {
+
+  }
+
+  @MetadataComponent (lazy = true)
+  public static class L extends A
+  {
+    static final AtomicInteger instances = new AtomicInteger ();
+
+    public L ()
+    {
+      instances.incrementAndGet ();
+    }
+  }
+
+  private static MetadataSource newSource (Class <?>... classes)
+  {
+    HashMap <String, Object> values = new HashMap<> ();
+    values.put ("metadata.string", "Hello, World!");
+
+    for (Class <?> clazz : classes)
+      values.put (PREFIX + clazz.getSimpleName (), clazz.getName ());
+
+    return new MapMetadataSource (values);
+  }
+
+  @Test
+  public void testInitialization () throws Exception
+  {
+    ExecutorService executor = Executors.newFixedThreadPool (4);
+
+    try
+    {
+      Recorder recorder = new Recorder ();
+
+      // A is not registered, but is discovered as a dependency.
+      ComponentDiscovery <Recorder> discovery =
+          new ComponentDiscovery<> (newSource (B.class, C.class, D.class),
+                                    PREFIX,
+                                    getClass ().getClassLoader (),
+                                    recorder,
+                                    executor);
+
+      Assert.assertEquals (4, discovery.getComponents ().size ());
+
+      discovery.start ();
+      discovery.awaitStartup ();
+
+      List <String> names = recorder.getNames ();
+      Assert.assertEquals (3, names.size ());
+      Assert.assertEquals ("A", names.get (0));
+      Assert.assertFalse (names.contains ("D"));
+
+      D d = discovery.get (D.class);
+      Assert.assertNotNull (d);
+      Assert.assertEquals ("D", recorder.getNames ().get (3));
+    }
+    finally
+    {
+      executor.shutdown ();
+    }
+  }
+
+  @Test
+  public void testLazyNotCreated () throws Exception
+  {
+    ExecutorService executor = Executors.newSingleThreadExecutor ();
+
+    try
+    {
+      ComponentDiscovery <Recorder> discovery =
+          new ComponentDiscovery<> (newSource (A.class, L.class),
+                                    PREFIX,
+                                    getClass ().getClassLoader (),
+                                    new Recorder (),
+                                    executor);
+
+      discovery.start ();
+      discovery.awaitStartup ();
+
+      // A lazy component is not created until it is requested.
+      Assert.assertEquals (0, L.instances.get ());
+
+      Assert.assertNotNull (discovery.get (L.class));
+      Assert.assertEquals (1, L.instances.get ());
+    }
+    finally
+    {
+      executor.shutdown ();
+    }
+  }
+
+  @Test(expected=IllegalStateException.class)
+  public void testDependencyCycle () throws Exception
+  {
+    ExecutorService executor = Executors.newSingleThreadExecutor ();
+
+    try
+    {
+      new ComponentDiscovery<> (newSource (E.class),
+                                PREFIX,
+                                getClass ().getClassLoader (),
+                                new Recorder (),
+                                executor);
+    }
+    finally
+    {
+      executor.shutdown ();
+    }
+  }
+
+  @Test
+  public void testRejectedExecution () throws Exception
+  {
+    // A shut down executor rejects all the initializers.
+    ExecutorService executor = Executors.newSingleThreadExecutor ();
+    executor.shutdown ();
+
+    Recorder recorder = new Recorder ();
+    ComponentDiscovery <Recorder> discovery =
+        new ComponentDiscovery<> (newSource (A.class, D.class),
+                                  PREFIX,
+                                  getClass ().getClassLoader (),
+                                  recorder,
+                                  executor);
+
+    discovery.start ();
+
+    try
+    {
+      discovery.awaitStartup ();
+      Assert.fail ();
+    }
+    catch (ExecutionException e)
+    {
+      Assert.assertTrue (e.getCause () instanceof RejectedExecutionException);
+    }
+
+    // The dependents of a rejected initializer complete instead of waiting.
+    try
+    {
+      discovery.get (D.class);
+      Assert.fail ();
+    }
+    catch (ExecutionException e)
+    {
+      Assert.assertTrue (recorder.getNames ().isEmpty ());
+    }
+  }
+
+  @Test
+  public void testFailure () throws Exception
+  {
+    ExecutorService executor = Executors.newSingleThreadExecutor ();
+
+    try
+    {
+      Recorder recorder = new Recorder ();
+      ComponentDiscovery <Recorder> discovery =
+          new ComponentDiscovery<> (newSource (H.class),
+                                    PREFIX,
+                                    getClass ().getClassLoader (),
+                                    recorder,
+                                    executor);
+
+      discovery.start ();
+
+      try
+      {
+        discovery.awaitStartup ();
+        Assert.fail ();
+      }
+      catch (ExecutionException e)
+      {
+        Assert.assertTrue (recorder.getNames ().isEmpty ());
+      }
+    }
+    finally
+    {
+      executor.shutdown ();
+    }
+  }
+}
@@ -0,0 +1,190 @@
+/**
+ * Copyright (C) 2013, James H. Hill
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.onehilltech.metadata;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+public class MetadataBinderTest
+{
+  public static class TestClass
+  {
+
+  }
+
+  public static class Values
+  {
+    @MetadataProperty (name="metadata.string")
+    public String theString;
+
+    @MetadataProperty (name="metadata.integer")
+    public int theInteger;
+
+    @MetadataProperty (name="metadata.classname")
+    public Class <TestClass> theClass;
+
+    @MetadataProperty (name="metadata.resource.string", fromResource=true)
+    public String theStringResource;
+
+    @MetadataProperty
+    public String missing = "unchanged";
+
+    private String metadataString_;
+
+    @MetadataMethod (name="metadata.string")
+    public void setMetadataString (String str)
+    {
+      this.metadataString_ = str;
+    }
+
+    public String getMetadataString ()
+    {
+      return this.metadataString_;
+    }
+  }
+
+  private static final ResourceResolver RESOLVER = new ResourceResolver ()
+  {
+    @Override
+    public Object resolve (int rcid, ResourceType rcType, Class <?> typeInfo)
+    {
+      return "resource:" + rcid;
+    }
+  };
+
+  private static MetadataSource newSource ()
+  {
+    HashMap <String, Object> values = new HashMap<> ();
+    values.put ("metadata.string", "Hello, World!");
+    values.put ("metadata.integer", 42);
+    values.put ("metadata.classname", TestClass.class.getName ());
+    values.put ("metadata.resource.string", 7);
+
+    return new MapMetadataSource (values);
+  }
+
+  private static MetadataBinder newBinder ()
+  {
+    return new MetadataBinder (newSource (), RESOLVER, MetadataBinderTest.class.getClassLoader ());
+  }
+
+  @Test
+  public void testBind () throws Exception
+  {
+    Values values = new Values ();
+    newBinder ().bind (values);
+
+    Assert.assertEquals ("Hello, World!", values.theString);
+    Assert.assertEquals (42, values.theInteger);
+    Assert.assertEquals (TestClass.class, values.theClass);
+    Assert.assertEquals ("resource:7", values.theStringResource);
+    Assert.assertEquals ("unchanged", values.missing);
+    Assert.assertEquals ("Hello, World!", values.getMetadataString ());
+  }
+
+  @Test
+  public void testGetValue () throws Exception
+  {
+    MetadataBinder binder = newBinder ();
+
+    Assert.assertEquals (42, binder.getValue ("metadata.integer", false, ResourceType.Auto, Integer.class));
+    Assert.assertEquals (TestClass.class, binder.getValue ("metadata.classname", false, ResourceType.Auto, Class.class));
+  }
+
+  @Test(expected=IllegalStateException.class)
+  public void testNoResourceResolver () throws Exception
+  {
+    MetadataBinder binder = new MetadataBinder (newSource (), null, MetadataBinderTest.class.getClassLoader ());
+    binder.bind (new Values ());
+  }
+
+  @Test
+  public void testConcurrentBind () throws Exception
+  {
+    final MetadataBinder binder = newBinder ();
+    ExecutorService executor = Executors.newFixedThreadPool (8);
+
+    try
+    {
+      List <Future <Values>> futures = new ArrayList<> ();
+
+      for (int i = 0; i < 10000; ++ i)
+      {
+        futures.add (executor.submit (new Callable<Values> () {
+          @Override
+          public Values call () throws Exception
+          {
+            Values values = new Values ();
+            binder.bind (values);
+
+            return values;
+          }
+        }));
+      }
+
+      for (Future <Values> future : futures)
+      {
+        Values values = future.get ();
+
+        Assert.assertEquals ("Hello, World!", values.theString);
+        Assert.assertEquals (42, values.theInteger);
+        Assert.assertEquals ("Hello, World!", values.getMetadataString ());
+      }
+    }
+    finally
+    {
+      executor.shutdown ();
+    }
+  }
+
+  @Test
+  public void testChromeTraceSink () throws Exception
+  {
+    File traceFile = File.createTempFile ("metadata-trace", ".json");
+    traceFile.deleteOnExit ();
+
+    ChromeTraceSink sink = new ChromeTraceSink (traceFile);
+    MetadataTrace.addSink (sink);
+
+    try
+    {
+      newBinder ().bind (new Values ());
+    }
+    finally
+    {
+      MetadataTrace.removeSink (sink);
+      sink.close ();
+    }
+
+    String trace = new String (Files.readAllBytes (traceFile.toPath ()), "UTF-8");
+
+    Assert.assertTrue (trace.contains ("initFromMetadata:" + Values.class.getName ()));
+    Assert.assertTrue (trace.contains ("bind:metadata.classname -> " + Values.class.getName () + ".theClass"));
+    Assert.assertTrue (trace.contains ("loadClass:" + TestClass.class.getName ()));
+  }
+}
@@ -0,0 +1,50 @@
+/**
+ * Copyright (C) 2013, James H. Hill
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.onehilltech.metadata;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+
+public class PropertiesMetadataSourceTest
+{
+  @Test
+  public void testValueConversion () throws Exception
+  {
+    String contents =
+        "metadata.string=Hello, World!\n" +
+        "metadata.integer=42\n" +
+        "metadata.hex=0x10\n" +
+        "metadata.float=1.5\n" +
+        "metadata.boolean=true\n";
+
+    PropertiesMetadataSource source = new PropertiesMetadataSource (new ByteArrayInputStream (contents.getBytes ("UTF-8")));
+
+    Assert.assertEquals (5, source.names ().size ());
+    Assert.assertEquals ("Hello, World!", source.get ("metadata.string"));
+    Assert.assertEquals (42, source.get ("metadata.integer"));
+    Assert.assertEquals (16, source.get ("metadata.hex"));
+    Assert.assertEquals (1.5f, source.get ("metadata.float"));
+    Assert.assertEquals (Boolean.TRUE, source.get ("metadata.boolean"));
+
+    Assert.assertTrue (source.contains ("metadata.string"));
+    Assert.assertFalse (source.contains ("foo"));
+    Assert.assertNull (source.get ("foo"));
+  }
+}
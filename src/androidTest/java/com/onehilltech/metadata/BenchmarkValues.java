@@ -0,0 +1,328 @@
+/**
+ * Copyright (C) 2013, James H. Hill
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.onehilltech.metadata;
+
+/**
+ * Class with 50 annotated members used by InitFromMetadataBenchmark.
+ */
+public class BenchmarkValues
+{
+  @MetadataProperty (name="metadata.string")
+  public String string00;
+
+  @MetadataProperty (name="metadata.string")
+  public String string01;
+
+  @MetadataProperty (name="metadata.string")
+  public String string02;
+
+  @MetadataProperty (name="metadata.string")
+  public String string03;
+
+  @MetadataProperty (name="metadata.string")
+  public String string04;
+
+  @MetadataProperty (name="metadata.string")
+  public String string05;
+
+  @MetadataProperty (name="metadata.string")
+  public String string06;
+
+  @MetadataProperty (name="metadata.string")
+  public String string07;
+
+  @MetadataProperty (name="metadata.string")
+  public String string08;
+
+  @MetadataProperty (name="metadata.string")
+  public String string09;
+
+  @MetadataProperty (name="metadata.string")
+  public String string10;
+
+  @MetadataProperty (name="metadata.string")
+  public String string11;
+
+  @MetadataProperty (name="metadata.string")
+  public String string12;
+
+  @MetadataProperty (name="metadata.string")
+  public String string13;
+
+  @MetadataProperty (name="metadata.string")
+  public String string14;
+
+  @MetadataProperty (name="metadata.string")
+  public String string15;
+
+  @MetadataProperty (name="metadata.string")
+  public String string16;
+
+  @MetadataProperty (name="metadata.string")
+  public String string17;
+
+  @MetadataProperty (name="metadata.string")
+  public String string18;
+
+  @MetadataProperty (name="metadata.string")
+  public String string19;
+
+  @MetadataProperty (name="metadata.string")
+  public String string20;
+
+  @MetadataProperty (name="metadata.string")
+  public String string21;
+
+  @MetadataProperty (name="metadata.string")
+  public String string22;
+
+  @MetadataProperty (name="metadata.string")
+  public String string23;
+
+  @MetadataProperty (name="metadata.string")
+  public String string24;
+
+  private int integer00_;
+
+  private int integer01_;
+
+  private int integer02_;
+
+  private int integer03_;
+
+  private int integer04_;
+
+  private int integer05_;
+
+  private int integer06_;
+
+  private int integer07_;
+
+  private int integer08_;
+
+  private int integer09_;
+
+  private int integer10_;
+
+  private int integer11_;
+
+  private int integer12_;
+
+  private int integer13_;
+
+  private int integer14_;
+
+  private int integer15_;
+
+  private int integer16_;
+
+  private int integer17_;
+
+  private int integer18_;
+
+  private int integer19_;
+
+  private int integer20_;
+
+  private int integer21_;
+
+  private int integer22_;
+
+  private int integer23_;
+
+  private int integer24_;
+
+  @MetadataMethod (name="metadata.integer")
+  public void setInteger00 (int value)
+  {
+    this.integer00_ = value;
+  }
+
+  @MetadataMethod (name="metadata.integer")
+  public void setInteger01 (int value)
+  {
+    this.integer01_ = value;
+  }
+
+  @MetadataMethod (name="metadata.integer")
+  public void setInteger02 (int value)
+  {
+    this.integer02_ = value;
+  }
+
+  @MetadataMethod (name="metadata.integer")
+  public void setInteger03 (int value)
+  {
+    this.integer03_ = value;
+  }
+
+  @MetadataMethod (name="metadata.integer")
+  public void setInteger04 (int value)
+  {
+    this.integer04_ = value;
+  }
+
+  @MetadataMethod (name="metadata.integer")
+  public void setInteger05 (int value)
+  {
+    this.integer05_ = value;
+  }
+
+  @MetadataMethod (name="metadata.integer")
+  public void setInteger06 (int value)
+  {
+    this.integer06_ = value;
+  }
+
+  @MetadataMethod (name="metadata.integer")
+  public void setInteger07 (int value)
+  {
+    this.integer07_ = value;
+  }
+
+  @MetadataMethod (name="metadata.integer")
+  public void setInteger08 (int value)
+  {
+    this.integer08_ = value;
+  }
+
+  @MetadataMethod (name="metadata.integer")
+  public void setInteger09 (int value)
+  {
+    this.integer09_ = value;
+  }
+
+  @MetadataMethod (name="metadata.integer")
+  public void setInteger10 (int value)
+  {
+    this.integer10_ = value;
+  }
+
+  @MetadataMethod (name="metadata.integer")
+  public void setInteger11 (int value)
+  {
+    this.integer11_ = value;
+  }
+
+  @MetadataMethod (name="metadata.integer")
+  public void setInteger12 (int value)
+  {
+    this.integer12_ = value;
+  }
+
+  @MetadataMethod (name="metadata.integer")
+  public void setInteger13 (int value)
+  {
+    this.integer13_ = value;
+  }
+
+  @MetadataMethod (name="metadata.integer")
+  public void setInteger14 (int value)
+  {
+    this.integer14_ = value;
+  }
+
+  @MetadataMethod (name="metadata.integer")
+  public void setInteger15 (int value)
+  {
+    this.integer15_ = value;
+  }
+
+  @MetadataMethod (name="metadata.integer")
+  public void setInteger16 (int value)
+  {
+    this.integer16_ = value;
+  }
+
+  @MetadataMethod (name="metadata.integer")
+  public void setInteger17 (int value)
+  {
+    this.integer17_ = value;
+  }
+
+  @MetadataMethod (name="metadata.integer")
+  public void setInteger18 (int value)
+  {
+    this.integer18_ = value;
+  }
+
+  @MetadataMethod (name="metadata.integer")
+  public void setInteger19 (int value)
+  {
+    this.integer19_ = value;
+  }
+
+  @MetadataMethod (name="metadata.integer")
+  public void setInteger20 (int value)
+  {
+    this.integer20_ = value;
+  }
+
+  @MetadataMethod (name="metadata.integer")
+  public void setInteger21 (int value)
+  {
+    this.integer21_ = value;
+  }
+
+  @MetadataMethod (name="metadata.integer")
+  public void setInteger22 (int value)
+  {
+    this.integer22_ = value;
+  }
+
+  @MetadataMethod (name="metadata.integer")
+  public void setInteger23 (int value)
+  {
+    this.integer23_ = value;
+  }
+
+  @MetadataMethod (name="metadata.integer")
+  public void setInteger24 (int value)
+  {
+    this.integer24_ = value;
+  }
+
+  public int sumIntegers ()
+  {
+    return this.integer00_
+        + this.integer01_
+        + this.integer02_
+        + this.integer03_
+        + this.integer04_
+        + this.integer05_
+        + this.integer06_
+        + this.integer07_
+        + this.integer08_
+        + this.integer09_
+        + this.integer10_
+        + this.integer11_
+        + this.integer12_
+        + this.integer13_
+        + this.integer14_
+        + this.integer15_
+        + this.integer16_
+        + this.integer17_
+        + this.integer18_
+        + this.integer19_
+        + this.integer20_
+        + this.integer21_
+        + this.integer22_
+        + this.integer23_
+        + this.integer24_;
+  }
+}
@@ -0,0 +1,92 @@
+/**
+ * Copyright (C) 2013, James H. Hill
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.onehilltech.metadata;
+
+import android.util.Log;
+
+import junit.framework.Assert;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+/**
+ * Compares binding through reflection, which assigns each member with
+ * Field.set() or Method.invoke(), against binding through the accessor that
+ * the metadata-compiler annotation processor generated for the class. Both
+ * use a compiled ClassBinding and the same meta-data, so the difference is
+ * the cost of invoking the members. The results are written to logcat.
+ */
+@RunWith (AndroidJUnit4.class)
+public class InitFromMetadataBenchmark
+{
+  private static final String TAG = "InitFromMetadataBenchmark";
+
+  private static final int WARMUP_ITERATIONS = 100;
+
+  private static final int ITERATIONS = 1000;
+
+  @Test
+  public void benchmarkReflectiveVsGenerated () throws Exception
+  {
+    // The processor must have generated the accessor for the benchmark to
+    // measure anything.
+    Class.forName (BenchmarkValues.class.getName () + MetadataAccessor.SUFFIX);
+
+    MetadataBinder binder = ManifestMetadata.get (InstrumentationRegistry.getInstrumentation ().getContext ()).getBinder ();
+    ClassBinding reflective = ClassBinding.compile (BenchmarkValues.class, false);
+    ClassBinding generated = ClassBinding.compile (BenchmarkValues.class, true);
+
+    for (int i = 0; i < WARMUP_ITERATIONS; ++ i)
+    {
+      binder.bind (new BenchmarkValues (), reflective);
+      binder.bind (new BenchmarkValues (), generated);
+    }
+
+    long start = System.nanoTime ();
+
+    for (int i = 0; i < ITERATIONS; ++ i)
+      binder.bind (new BenchmarkValues (), reflective);
+
+    long reflectiveTime = System.nanoTime () - start;
+
+    start = System.nanoTime ();
+
+    for (int i = 0; i < ITERATIONS; ++ i)
+      binder.bind (new BenchmarkValues (), generated);
+
+    long generatedTime = System.nanoTime () - start;
+
+    Log.i (TAG, "reflective: " + (reflectiveTime / ITERATIONS) + " ns/op");
+    Log.i (TAG, "generated: " + (generatedTime / ITERATIONS) + " ns/op");
+
+    // Both approaches must produce the same object.
+    BenchmarkValues expected = new BenchmarkValues ();
+    binder.bind (expected, reflective);
+
+    BenchmarkValues actual = new BenchmarkValues ();
+    binder.bind (actual, generated);
+
+    Assert.assertEquals (expected.string00, actual.string00);
+    Assert.assertEquals (expected.string24, actual.string24);
+    Assert.assertEquals (expected.sumIntegers (), actual.sumIntegers ());
+    Assert.assertEquals (25 * 42, actual.sumIntegers ());
+  }
+}
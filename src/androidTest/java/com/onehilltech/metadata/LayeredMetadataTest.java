@@ -0,0 +1,105 @@
+/**
+ * Copyright (C) 2013, James H. Hill
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.onehilltech.metadata;
+
+import android.content.ComponentName;
+import android.content.Context;
+
+import com.onehilltech.metadata.test.TestActivity;
+
+import junit.framework.Assert;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.HashMap;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+@RunWith (AndroidJUnit4.class)
+public class LayeredMetadataTest
+{
+  @Test
+  public void testComponentOverApplication () throws Exception
+  {
+    Context context = InstrumentationRegistry.getInstrumentation ().getContext ();
+    ComponentName componentName = new ComponentName (context, TestActivity.class);
+    LayeredMetadata metadata = LayeredMetadata.get (context, componentName);
+
+    Assert.assertEquals ("Hello, World", metadata.getValue ("metadata.activity.string"));
+    Assert.assertEquals (LayeredMetadata.Layer.Component, metadata.getLayer ("metadata.activity.string"));
+
+    Assert.assertEquals ("Hello, World!", metadata.getValue ("metadata.string"));
+    Assert.assertEquals (LayeredMetadata.Layer.Application, metadata.getLayer ("metadata.string"));
+
+    Assert.assertNull (metadata.getLayer ("foo"));
+    Assert.assertSame (metadata, LayeredMetadata.get (context, componentName));
+  }
+
+  @Test
+  public void testOverrides () throws Exception
+  {
+    Context context = InstrumentationRegistry.getInstrumentation ().getContext ();
+    HashMap <String, Object> values = new HashMap<> ();
+    values.put ("metadata.integer", 7);
+
+    LayeredMetadata metadata =
+        new LayeredMetadata.Builder (context)
+            .addValues (values)
+            .addAsset ("metadata.properties")
+            .addApplication ()
+            .build ();
+
+    Assert.assertEquals (7, (int)metadata.getValue ("metadata.integer", Integer.class));
+    Assert.assertEquals (LayeredMetadata.Layer.Runtime, metadata.getLayer ("metadata.integer"));
+
+    Assert.assertEquals ("Hello, Asset!", metadata.getValue ("metadata.string"));
+    Assert.assertEquals (LayeredMetadata.Layer.Asset, metadata.getLayer ("metadata.string"));
+
+    Assert.assertEquals ("Asset Only", metadata.getValue ("metadata.asset.string"));
+
+    MetadataValues target = new MetadataValues ();
+    metadata.initFromMetadata (target);
+
+    Assert.assertEquals (7, target.theInteger);
+    Assert.assertEquals (TestClass.class, target.theClass);
+  }
+
+  @Test
+  public void testTypedAssetOverride () throws Exception
+  {
+    Context context = InstrumentationRegistry.getInstrumentation ().getContext ();
+
+    LayeredMetadata metadata =
+        new LayeredMetadata.Builder (context)
+            .addAsset ("metadata.properties")
+            .addApplication ()
+            .build ();
+
+    // The asset value is converted to an Integer, like the manifest value.
+    Assert.assertEquals (13, (int)metadata.getValue ("metadata.integer", Integer.class));
+    Assert.assertEquals (LayeredMetadata.Layer.Asset, metadata.getLayer ("metadata.integer"));
+
+    MetadataValues target = new MetadataValues ();
+    metadata.initFromMetadata (target);
+
+    Assert.assertEquals (13, target.theInteger);
+    Assert.assertEquals ("Hello, Asset!", target.theString);
+  }
+}
@@ -0,0 +1,86 @@
+/**
+ * Copyright (C) 2013, James H. Hill
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.onehilltech.metadata;
+
+import android.content.Context;
+
+import junit.framework.Assert;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+@RunWith (AndroidJUnit4.class)
+public class MetadataTraceTest
+{
+  @Test
+  public void testChromeTraceSink () throws Exception
+  {
+    Context context = InstrumentationRegistry.getInstrumentation ().getTargetContext ();
+    File traceFile = new File (context.getCacheDir (), "metadata-trace.json");
+    ChromeTraceSink sink = new ChromeTraceSink (traceFile);
+
+    MetadataTrace.addSink (sink);
+
+    try
+    {
+      // Use a new object instead of the cached one, which may have already
+      // unparceled its Bundle.
+      Context testContext = InstrumentationRegistry.getInstrumentation ().getContext ();
+      ManifestMetadata metadata = new ManifestMetadata (testContext, ManifestMetadata.get (testContext).getMetadata ());
+
+      MetadataValues values = new MetadataValues ();
+      metadata.initFromMetadata (values);
+    }
+    finally
+    {
+      MetadataTrace.removeSink (sink);
+      sink.close ();
+    }
+
+    String trace = readFile (traceFile);
+
+    Assert.assertTrue (trace.startsWith ("{\"traceEvents\":["));
+    Assert.assertTrue (trace.trim ().endsWith ("]}"));
+    Assert.assertTrue (trace.contains ("initFromMetadata:" + MetadataValues.class.getName ()));
+    Assert.assertTrue (trace.contains ("bind:metadata.classname -> " + MetadataValues.class.getName () + ".theClass"));
+    Assert.assertTrue (trace.contains ("loadClass:" + TestClass.class.getName ()));
+    Assert.assertTrue (trace.contains ("Bundle.unparcel"));
+  }
+
+  private static String readFile (File file) throws Exception
+  {
+    StringBuilder builder = new StringBuilder ();
+
+    try (BufferedReader reader = new BufferedReader (new FileReader (file)))
+    {
+      String line;
+
+      while ((line = reader.readLine ()) != null)
+        builder.append (line).append ('\n');
+    }
+
+    return builder.toString ();
+  }
+}
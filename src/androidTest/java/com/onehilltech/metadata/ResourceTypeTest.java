@@ -0,0 +1,155 @@
+/**
+ * Copyright (C) 2013, James H. Hill
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.onehilltech.metadata;
+
+import android.content.res.AssetFileDescriptor;
+import android.content.res.TypedArray;
+import android.content.res.XmlResourceParser;
+
+import junit.framework.Assert;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.xmlpull.v1.XmlPullParser;
+
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+@RunWith (AndroidJUnit4.class)
+public class ResourceTypeTest
+{
+  public static final String RAW_CONTENTS = "Hello, Raw!";
+
+  public static class Values
+  {
+    @MetadataProperty (name="metadata.resource.fraction", fromResource=true, resourceType=ResourceType.Fraction)
+    public float fraction;
+
+    @MetadataProperty (name="metadata.resource.stringarray", fromResource=true)
+    public String [] stringArray;
+
+    @MetadataProperty (name="metadata.resource.raw", fromResource=true)
+    public ByteBuffer rawBuffer;
+
+    @MetadataProperty (name="metadata.resource.raw", fromResource=true, resourceType=ResourceType.Raw)
+    public AssetFileDescriptor rawFd;
+  }
+
+  public static class HandleValues
+  {
+    @MetadataProperty (name="metadata.resource.raw", fromResource=true)
+    public InputStream raw;
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testAutoDetectHandle () throws Exception
+  {
+    // A handle-owning type must be requested explicitly.
+    getMetadata ().initFromMetadata (new HandleValues ());
+  }
+
+  @Test
+  public void testInitFromMetadata () throws Exception
+  {
+    Values values = new Values ();
+    getMetadata ().initFromMetadata (values);
+
+    Assert.assertEquals (0.5f, values.fraction);
+
+    Assert.assertEquals (2, values.stringArray.length);
+    Assert.assertEquals ("Hello", values.stringArray[0]);
+    Assert.assertEquals ("World", values.stringArray[1]);
+
+    byte [] bytes = new byte[values.rawBuffer.remaining ()];
+    values.rawBuffer.get (bytes);
+    Assert.assertEquals (RAW_CONTENTS, new String (bytes, "UTF-8"));
+
+    Assert.assertEquals (RAW_CONTENTS.length (), values.rawFd.getLength ());
+    values.rawFd.close ();
+  }
+
+  @Test
+  public void testReadRaw () throws Exception
+  {
+    String contents = getMetadata ().readRaw ("metadata.resource.raw", new ResourceReader<InputStream, String> () {
+      @Override
+      public String read (InputStream resource) throws java.io.IOException
+      {
+        ByteArrayOutputStream out = new ByteArrayOutputStream ();
+        byte [] buffer = new byte[64];
+        int n;
+
+        while ((n = resource.read (buffer)) != -1)
+          out.write (buffer, 0, n);
+
+        return out.toString ("UTF-8");
+      }
+    });
+
+    Assert.assertEquals (RAW_CONTENTS, contents);
+  }
+
+  @Test
+  public void testMapRaw () throws Exception
+  {
+    ByteBuffer buffer = getMetadata ().mapRaw ("metadata.resource.raw");
+
+    Assert.assertTrue (buffer.isReadOnly ());
+    Assert.assertEquals (RAW_CONTENTS.length (), buffer.remaining ());
+  }
+
+  @Test
+  public void testReadXml () throws Exception
+  {
+    String name = getMetadata ().readXml ("metadata.resource.xml", new ResourceReader<XmlResourceParser, String> () {
+      @Override
+      public String read (XmlResourceParser resource) throws java.io.IOException, org.xmlpull.v1.XmlPullParserException
+      {
+        while (resource.next () != XmlPullParser.START_TAG)
+          ;
+
+        return resource.getAttributeValue (null, "name");
+      }
+    });
+
+    Assert.assertEquals ("Hello, Xml!", name);
+  }
+
+  @Test
+  public void testReadTypedArray () throws Exception
+  {
+    int length = getMetadata ().readTypedArray ("metadata.resource.typedarray", new ResourceReader<TypedArray, Integer> () {
+      @Override
+      public Integer read (TypedArray resource)
+      {
+        return resource.length ();
+      }
+    });
+
+    Assert.assertEquals (2, length);
+  }
+
+  private static ManifestMetadata getMetadata () throws Exception
+  {
+    return ManifestMetadata.get (InstrumentationRegistry.getInstrumentation ().getContext ());
+  }
+}
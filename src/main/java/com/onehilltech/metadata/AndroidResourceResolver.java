@@ -0,0 +1,227 @@
+/**
+ * Copyright (C) 2013, James H. Hill
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.onehilltech.metadata;
+
+import android.content.Context;
+import android.content.res.AssetFileDescriptor;
+import android.content.res.Resources;
+import android.content.res.TypedArray;
+import android.content.res.XmlResourceParser;
+import android.util.Log;
+
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.HashMap;
+
+/**
+ * ResourceResolver that loads resources from the Resources of a Context.
+ */
+public class AndroidResourceResolver implements ResourceResolver
+{
+  private static final String TAG = "AndroidResourceResolver";
+
+  private final Context context_;
+
+  public AndroidResourceResolver (Context context)
+  {
+    this.context_ = context;
+  }
+
+	/**
+	 * Get the value from a resource. The value type is determined by
+	 * the field object type.
+	 *
+	 * Types that own a native handle, such as a TypedArray, an InputStream,
+	 * or an AssetFileDescriptor, are not detected because the receiver would
+	 * have to release the handle. They must be requested with an explicit
+	 * resource type, or read with the readTypedArray () and readRaw () methods
+	 * of ManifestMetadata. The XmlResourceParser is still detected for
+	 * compatibility, and the receiver must close it.
+	 * 
+	 * @param rcid
+	 * @return
+	 */
+	private Object resolve (int rcid, Class <?> typeInfo)
+	{
+	  Resources r = this.context_.getResources ();
+	  
+	  if (typeInfo.isAssignableFrom (String.class))
+	    return r.getString (rcid);
+	  else if (typeInfo.isAssignableFrom (int.class) || typeInfo.isAssignableFrom (Integer.class))
+	    return rcid;
+    else if (typeInfo.isAssignableFrom (boolean.class) || typeInfo.isAssignableFrom (Boolean.class))
+      return r.getBoolean (rcid);
+    else if (typeInfo.isAssignableFrom (float.class) || typeInfo.isAssignableFrom (Float.class))
+      return r.getDimension (rcid);
+	  else if (typeInfo.isAssignableFrom (int[].class))
+	    return r.getIntArray (rcid);
+    else if (typeInfo.isAssignableFrom (XmlResourceParser.class))
+      return r.getAnimation (rcid);
+    else if (typeInfo.isAssignableFrom (String[].class))
+      return r.getStringArray (rcid);
+    else if (typeInfo.isAssignableFrom (ByteBuffer.class))
+      return this.getRawResource (rcid, typeInfo);
+    else if (typeInfo.isAssignableFrom (TypedArray.class) ||
+             typeInfo.isAssignableFrom (InputStream.class) ||
+             typeInfo.isAssignableFrom (AssetFileDescriptor.class))
+      throw new IllegalArgumentException (typeInfo.getName () + " owns a native handle; use an explicit resource type, readTypedArray (), or readRaw ()");
+	  else
+	    return null;
+	}
+	
+	/**
+	 * Get the value from a resource. The resource type is determined by
+	 * the rcType parameter.
+	 * 
+	 * @param rcid
+	 * @param rcType
+	 * @param typeInfo
+	 * @return
+	 * @throws IllegalArgumentException
+	 * @throws IllegalAccessException
+	 * @throws InvocationTargetException
+	 */
+  @Override
+  public Object resolve (int rcid, ResourceType rcType, Class <?> typeInfo)
+      throws IllegalArgumentException, IllegalAccessException, InvocationTargetException
+  {
+    // Either, we are going to auto-detect the resource type based on the
+    // type of the field, or we are given a hint in the annotation.
+    if (rcType.equals (ResourceType.Auto))
+      return this.resolve (rcid, typeInfo);
+
+    // The raw resources have more than one representation, and fractions
+    // require extra parameters. They cannot be read through the table.
+    if (rcType.equals (ResourceType.Raw))
+      return this.getRawResource (rcid, typeInfo);
+    else if (rcType.equals (ResourceType.Fraction))
+      return this.context_.getResources ().getFraction (rcid, 1, 1);
+
+    Method method = resourceTable_.get (rcType);
+    return method.invoke (this.context_.getResources (), rcid);
+  }
+  
+  /**
+   * Get a raw resource. The representation is determined by the type of
+   * the target: an InputStream, an AssetFileDescriptor, or a memory-mapped
+   * ByteBuffer. The receiver owns, and must close, the InputStream and the
+   * AssetFileDescriptor.
+   *
+   * @param rcid
+   * @param typeInfo
+   * @return
+   */
+  private Object getRawResource (int rcid, Class <?> typeInfo)
+  {
+    Resources r = this.context_.getResources ();
+
+    if (typeInfo.isAssignableFrom (InputStream.class))
+      return r.openRawResource (rcid);
+    else if (typeInfo.isAssignableFrom (AssetFileDescriptor.class))
+      return r.openRawResourceFd (rcid);
+
+    try
+    {
+      return mapRawResource (r, rcid);
+    }
+    catch (IOException e)
+    {
+      throw new IllegalStateException ("Failed to map raw resource", e);
+    }
+  }
+
+  /**
+   * Map a raw resource into memory. The resource must be stored uncompressed
+   * in the package, otherwise Resources.NotFoundException is thrown.
+   *
+   * @param r
+   * @param rcid
+   * @return
+   * @throws IOException
+   */
+  static ByteBuffer mapRawResource (Resources r, int rcid)
+      throws IOException
+  {
+    AssetFileDescriptor afd = r.openRawResourceFd (rcid);
+
+    try
+    {
+      // The mapping remains valid after the stream and the descriptor are
+      // closed. Closing the stream also closes its channel. On Android, the
+      // stream does not own a descriptor it did not open, so the descriptor
+      // is closed only once, by the AssetFileDescriptor.
+      try (FileInputStream stream = new FileInputStream (afd.getFileDescriptor ()))
+      {
+        return stream.getChannel ().map (FileChannel.MapMode.READ_ONLY, afd.getStartOffset (), afd.getLength ());
+      }
+    }
+    finally
+    {
+      afd.close ();
+    }
+  }
+
+  private static final HashMap <ResourceType, Method> resourceTable_ = new HashMap <ResourceType, Method> ();
+  
+  static
+  {
+    installResourceMethodAccessor (ResourceType.Animation, "getAnimation");
+    installResourceMethodAccessor (ResourceType.Boolean, "getBoolean");
+    installResourceMethodAccessor (ResourceType.Color, "getColor");
+    installResourceMethodAccessor (ResourceType.Dimension, "getDimension");
+    installResourceMethodAccessor (ResourceType.DimensionPixelOffset, "getDimensionPixelOffset");
+    installResourceMethodAccessor (ResourceType.DimensionPixelSize, "getDimensionPixelSize");
+    installResourceMethodAccessor (ResourceType.Drawable, "getDrawable");
+    installResourceMethodAccessor (ResourceType.Id, "getInteger");
+    installResourceMethodAccessor (ResourceType.Integer, "getInteger");
+    installResourceMethodAccessor (ResourceType.IntArray, "getIntArray");
+    installResourceMethodAccessor (ResourceType.String, "getString");
+    installResourceMethodAccessor (ResourceType.StringArray, "getStringArray");
+    installResourceMethodAccessor (ResourceType.TypedArray, "obtainTypedArray");
+    installResourceMethodAccessor (ResourceType.Xml, "getXml");
+  }
+  
+  /**
+   * Install the resource access method for the specified resource type.
+   * 
+   * @param rcType
+   * @param methodName
+   */
+  private static void installResourceMethodAccessor (ResourceType rcType, String methodName)
+  {
+    Class <Resources> clazz = Resources.class;
+    
+    try
+    {
+      resourceTable_.put (rcType, clazz.getMethod (methodName, int.class));
+    }
+    catch (SecurityException e)
+    {
+      Log.w (TAG, e.getMessage (), e);
+    }
+    catch (NoSuchMethodException e)
+    {
+      Log.w (TAG, e.getMessage (), e);
+    } 
+  }
+}
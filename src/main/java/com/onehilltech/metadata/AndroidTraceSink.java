@@ -0,0 +1,70 @@
+/**
+ * Copyright (C) 2013, James H. Hill
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.onehilltech.metadata;
+
+import android.os.Build;
+import android.os.Trace;
+
+/**
+ * Trace sink that forwards spans to android.os.Trace so they appear in
+ * systrace and Perfetto captures on the device. The sink does nothing on
+ * devices that predate the Trace API. On Android 10 and later, the sink is
+ * only enabled while a trace is being captured.
+ *
+ * The sink is not installed by default:
+ *
+ * <pre>
+ *   MetadataTrace.addSink (new AndroidTraceSink ());
+ * </pre>
+ */
+public class AndroidTraceSink implements TraceSink
+{
+  /// Maximum length of a section name accepted by android.os.Trace.
+  private static final int MAX_SECTION_NAME_LENGTH = 127;
+
+  private static final boolean TRACE_SUPPORTED =
+      Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN_MR2;
+
+  @Override
+  public boolean isEnabled ()
+  {
+    if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.Q)
+      return Trace.isEnabled ();
+
+    return TRACE_SUPPORTED;
+  }
+
+  @Override
+  public void beginSection (String name)
+  {
+    if (!TRACE_SUPPORTED)
+      return;
+
+    if (name.length () > MAX_SECTION_NAME_LENGTH)
+      name = name.substring (0, MAX_SECTION_NAME_LENGTH);
+
+    Trace.beginSection (name);
+  }
+
+  @Override
+  public void endSection ()
+  {
+    if (TRACE_SUPPORTED)
+      Trace.endSection ();
+  }
+}
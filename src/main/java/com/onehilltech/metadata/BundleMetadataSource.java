@@ -0,0 +1,95 @@
+/**
+ * Copyright (C) 2013, James H. Hill
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.onehilltech.metadata;
+
+import android.os.Bundle;
+
+import java.util.Collections;
+import java.util.Set;
+
+/**
+ * MetadataSource for a meta-data Bundle. A missing Bundle is treated as
+ * an empty source.
+ *
+ * The first access to a Bundle read from a Parcel unparcels all its values,
+ * which is the most expensive part of reading the meta-data. The source
+ * forces the unparcel on its first access, in a Bundle.unparcel trace span,
+ * so the cost is attributed to the Bundle instead of the key that happened
+ * to be read first.
+ */
+public class BundleMetadataSource implements MetadataSource
+{
+  private final Bundle bundle_;
+
+  /// The bundle has been unparceled.
+  private volatile boolean unparceled_;
+
+  public BundleMetadataSource (Bundle bundle)
+  {
+    this.bundle_ = bundle;
+    this.unparceled_ = bundle == null;
+  }
+
+  @Override
+  public boolean contains (String name)
+  {
+    this.unparcel ();
+    return this.bundle_ != null && this.bundle_.containsKey (name);
+  }
+
+  @Override
+  public Object get (String name)
+  {
+    this.unparcel ();
+    return this.bundle_ != null ? this.bundle_.get (name) : null;
+  }
+
+  @Override
+  public Set <String> names ()
+  {
+    this.unparcel ();
+    return this.bundle_ != null ? this.bundle_.keySet () : Collections.<String>emptySet ();
+  }
+
+  /**
+   * Unparcel the bundle, if it has not been unparceled. Concurrent callers
+   * may both force the unparcel, which the Bundle synchronizes.
+   */
+  private void unparcel ()
+  {
+    if (this.unparceled_)
+      return;
+
+    boolean tracing = MetadataTrace.isEnabled ();
+
+    if (tracing)
+      MetadataTrace.beginSection ("Bundle.unparcel");
+
+    try
+    {
+      // Any access to the bundle unparcels it.
+      this.bundle_.size ();
+      this.unparceled_ = true;
+    }
+    finally
+    {
+      if (tracing)
+        MetadataTrace.endSection ();
+    }
+  }
+}
@@ -0,0 +1,282 @@
+/**
+ * Copyright (C) 2013, James H. Hill
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.onehilltech.metadata;
+
+import android.app.Activity;
+import android.content.ComponentName;
+import android.content.Context;
+import android.content.pm.PackageManager.NameNotFoundException;
+import android.os.Bundle;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Meta-data view that merges several layers of meta-data into a single
+ * table. A value defined in a higher layer hides the same value in the
+ * lower layers. The layers are flattened once when the view is built, so
+ * each lookup is a single probe into the merged table, and the view records
+ * the layer that each value came from.
+ *
+ * The view returned by get (Context, ComponentName) places the component
+ * meta-data over the application meta-data. Use the Builder to create views
+ * that also include values from an asset file or from a runtime map.
+ */
+public class LayeredMetadata extends ManifestMetadata
+{
+  /**
+   * The different sources of a layer.
+   */
+  public enum Layer
+  {
+    Component,
+    Application,
+    Asset,
+    Runtime
+  }
+
+  /// The layer of each value in the merged table.
+  private final HashMap <String, Layer> layers_;
+
+  private static final HashMap <ComponentName, WeakReference <LayeredMetadata>> components_ = new HashMap<> ();
+
+  /**
+   * Get the layered meta-data for an activity. The activity meta-data is
+   * placed over the application meta-data.
+   *
+   * @param activity          Target activity
+   * @return
+   * @throws NameNotFoundException
+   */
+  public static LayeredMetadata get (Activity activity)
+      throws NameNotFoundException
+  {
+    return get (activity, activity.getComponentName ());
+  }
+
+  /**
+   * Get the layered meta-data for a component. The component meta-data is
+   * placed over the application meta-data.
+   *
+   * @param context           Execution context
+   * @param componentName     Target component
+   * @return
+   * @throws NameNotFoundException
+   */
+  public static LayeredMetadata get (Context context, ComponentName componentName)
+      throws NameNotFoundException
+  {
+    // The merged view does not change over the lifetime of the application
+    // so we can reuse it while someone holds a reference to it.
+    WeakReference <LayeredMetadata> metadata = components_.get (componentName);
+
+    if (metadata != null && metadata.get () != null)
+      return metadata.get ();
+
+    LayeredMetadata lm =
+        new Builder (context)
+            .addComponent (componentName)
+            .addApplication ()
+            .build ();
+
+    components_.put (componentName, new WeakReference<> (lm));
+
+    return lm;
+  }
+
+  private LayeredMetadata (Context context, Bundle bundle, HashMap <String, Layer> layers)
+  {
+    super (context, bundle);
+
+    this.layers_ = layers;
+  }
+
+  /**
+   * Get the layer that defines a value.
+   *
+   * @param name        Name of the meta-data element
+   * @return            The layer, or null if the value is not defined
+   */
+  public Layer getLayer (String name)
+  {
+    return this.layers_.get (name);
+  }
+
+  /**
+   * Builder for LayeredMetadata objects. Layers are added from the highest
+   * precedence to the lowest precedence.
+   */
+  public static final class Builder
+  {
+    private final Context context_;
+
+    private final ArrayList <Bundle> bundles_ = new ArrayList<> ();
+
+    private final ArrayList <Layer> layers_ = new ArrayList<> ();
+
+    /// The component, if any, that the view is built for.
+    private ComponentName componentName_;
+
+    public Builder (Context context)
+    {
+      this.context_ = context;
+    }
+
+    /**
+     * Add the meta-data of a component.
+     *
+     * @param componentName     Target component
+     * @throws NameNotFoundException
+     */
+    public Builder addComponent (ComponentName componentName)
+        throws NameNotFoundException
+    {
+      this.componentName_ = componentName;
+
+      return this.addLayer (Layer.Component, ManifestMetadata.get (this.context_, componentName).getMetadata ());
+    }
+
+    /**
+     * Add the meta-data of the application.
+     *
+     * @throws NameNotFoundException
+     */
+    public Builder addApplication ()
+        throws NameNotFoundException
+    {
+      return this.addLayer (Layer.Application, ManifestMetadata.get (this.context_).getMetadata ());
+    }
+
+    /**
+     * Add the values from a properties file in the application assets. The
+     * values are converted the same way the Android build tools convert
+     * android:value attributes, so integer, float, and boolean values can
+     * override the same values in the manifest.
+     *
+     * @param fileName          Name of the asset file
+     * @throws IOException
+     */
+    public Builder addAsset (String fileName)
+        throws IOException
+    {
+      PropertiesMetadataSource source;
+
+      try (InputStream in = this.context_.getAssets ().open (fileName))
+      {
+        source = new PropertiesMetadataSource (in);
+      }
+
+      Bundle bundle = new Bundle ();
+
+      for (String name : source.names ())
+        putValue (bundle, name, source.get (name));
+
+      return this.addLayer (Layer.Asset, bundle);
+    }
+
+    /**
+     * Add values defined at runtime. The values must be String, Integer,
+     * Boolean, Float, Long, or Double objects.
+     *
+     * @param values            Map of values
+     */
+    public Builder addValues (Map <String, ?> values)
+    {
+      Bundle bundle = new Bundle ();
+
+      for (Map.Entry <String, ?> entry : values.entrySet ())
+        putValue (bundle, entry.getKey (), entry.getValue ());
+
+      return this.addLayer (Layer.Runtime, bundle);
+    }
+
+    /**
+     * Flatten the layers into a LayeredMetadata object.
+     */
+    public LayeredMetadata build ()
+    {
+      boolean tracing = MetadataTrace.isEnabled ();
+
+      if (tracing)
+      {
+        String target = this.componentName_ != null ? this.componentName_.flattenToShortString () : this.context_.getPackageName ();
+        MetadataTrace.beginSection ("LayeredMetadata.build:" + target + " " + this.layers_);
+      }
+
+      try
+      {
+        Bundle merged = new Bundle ();
+        HashMap <String, Layer> layers = new HashMap<> ();
+
+        // Apply the layers from the lowest precedence to the highest precedence
+        // so values in the higher layers replace values in the lower layers.
+        for (int i = this.bundles_.size () - 1; i >= 0; -- i)
+        {
+          Bundle bundle = this.bundles_.get (i);
+          Layer layer = this.layers_.get (i);
+
+          merged.putAll (bundle);
+
+          for (String name : bundle.keySet ())
+            layers.put (name, layer);
+        }
+
+        return new LayeredMetadata (this.context_, merged, layers);
+      }
+      finally
+      {
+        if (tracing)
+          MetadataTrace.endSection ();
+      }
+    }
+
+    private Builder addLayer (Layer layer, Bundle bundle)
+    {
+      // A component without meta-data has a null bundle.
+      if (bundle != null)
+      {
+        this.bundles_.add (bundle);
+        this.layers_.add (layer);
+      }
+
+      return this;
+    }
+
+    private static void putValue (Bundle bundle, String name, Object value)
+    {
+      if (value instanceof String)
+        bundle.putString (name, (String)value);
+      else if (value instanceof Integer)
+        bundle.putInt (name, (Integer)value);
+      else if (value instanceof Boolean)
+        bundle.putBoolean (name, (Boolean)value);
+      else if (value instanceof Float)
+        bundle.putFloat (name, (Float)value);
+      else if (value instanceof Long)
+        bundle.putLong (name, (Long)value);
+      else if (value instanceof Double)
+        bundle.putDouble (name, (Double)value);
+      else
+        throw new IllegalArgumentException ("Unsupported value type for " + name);
+    }
+  }
+}
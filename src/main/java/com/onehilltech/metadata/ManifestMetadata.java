@@ -23,22 +23,29 @@ import android.content.pm.ActivityInfo;
 import android.content.pm.ApplicationInfo;
 import android.content.pm.PackageManager;
 import android.content.pm.PackageManager.NameNotFoundException;
-import android.content.res.Resources;
+import android.content.res.TypedArray;
 import android.content.res.XmlResourceParser;
 import android.os.Bundle;
-import android.util.Log;
 
+import org.xmlpull.v1.XmlPullParserException;
+
+import java.io.IOException;
+import java.io.InputStream;
 import java.lang.ref.WeakReference;
-import java.lang.reflect.Field;
 import java.lang.reflect.InvocationTargetException;
-import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
 import java.util.HashMap;
+import java.util.concurrent.Executor;
 
 /**
  * Utility class for loading meta-data from AndroidManifest.xml. This
  * class defines methods that convert meta-data values into type-specific
  * values. It also provides methods for initializing annotated classes
  * with values defined in the meta-data.
+ *
+ * The class is the Android adapter for the MetadataBinder engine. It
+ * reads the values from a meta-data Bundle, and resolves resource values
+ * through the Resources of the Context.
  * 
  * The class is a Singleton, and must be access using the get () method.
  * We use the Singleton pattern since there is only one manifest for a
@@ -52,13 +59,14 @@ public class ManifestMetadata
   
   /// The application context for the program.
   private final Context context_;
+
+  /// The binding engine for the metadata bundle.
+  private final MetadataBinder binder_;
   
   /// Singleton reference.
   private static WeakReference <ManifestMetadata> app_;
 
   private static final HashMap <ComponentName, WeakReference <ManifestMetadata>> activities_ = new HashMap<> ();
-
-  private static final String TAG = "ManifestMetadata";
   
   /**
    * Get the singleton instance of the manifest. W
@@ -73,8 +81,24 @@ public class ManifestMetadata
       return app_.get ();
 
     // Load the metadata for the application.
-    PackageManager pm = context.getPackageManager ();
-    ApplicationInfo ai = pm.getApplicationInfo (context.getPackageName (), PackageManager.GET_META_DATA);
+    ApplicationInfo ai;
+
+    boolean tracing = MetadataTrace.isEnabled ();
+
+    if (tracing)
+      MetadataTrace.beginSection ("ManifestMetadata.get:" + context.getPackageName ());
+
+    try
+    {
+      PackageManager pm = context.getPackageManager ();
+      ai = pm.getApplicationInfo (context.getPackageName (), PackageManager.GET_META_DATA);
+    }
+    finally
+    {
+      if (tracing)
+        MetadataTrace.endSection ();
+    }
+
     ManifestMetadata mm = new ManifestMetadata (context, ai.metaData);
 
     app_ = new WeakReference <> (mm);
@@ -113,8 +137,24 @@ public class ManifestMetadata
       return metadata.get ();
 
     // Load the metadata for the application.
-    PackageManager pm = context.getPackageManager ();
-    ActivityInfo ai = pm.getActivityInfo (componentName, PackageManager.GET_META_DATA);
+    ActivityInfo ai;
+
+    boolean tracing = MetadataTrace.isEnabled ();
+
+    if (tracing)
+      MetadataTrace.beginSection ("ManifestMetadata.get:" + componentName.flattenToShortString ());
+
+    try
+    {
+      PackageManager pm = context.getPackageManager ();
+      ai = pm.getActivityInfo (componentName, PackageManager.GET_META_DATA);
+    }
+    finally
+    {
+      if (tracing)
+        MetadataTrace.endSection ();
+    }
+
     ManifestMetadata mm = new ManifestMetadata (context, ai.metaData);
 
     // Cache the metadata for future reference.
@@ -130,10 +170,23 @@ public class ManifestMetadata
    * @param context
    * @throws NameNotFoundException
    */
-  private ManifestMetadata (Context context, Bundle bundle)
+  ManifestMetadata (Context context, Bundle bundle)
   {
     this.context_ = context;
     this.metadata_ = bundle;
+    this.binder_ = new MetadataBinder (new BundleMetadataSource (bundle),
+                                       new AndroidResourceResolver (context),
+                                       context.getClassLoader ());
+  }
+
+  /**
+   * Get the binding engine for the metadata.
+   *
+   * @return
+   */
+  MetadataBinder getBinder ()
+  {
+    return this.binder_;
   }
 
   /**
@@ -160,7 +213,9 @@ public class ManifestMetadata
    */
   public String getValue (String name)
   {
-    return this.metadata_.getString (name);
+    // Like Bundle.getString (), a value that is not a String is returned as null.
+    Object value = this.binder_.getSource ().get (name);
+    return value instanceof String ? (String)value : null;
   }
   
   /**
@@ -190,242 +245,203 @@ public class ManifestMetadata
     throws NameNotFoundException, IllegalArgumentException, 
       ClassNotFoundException, IllegalAccessException, InvocationTargetException
   {
-    if (!this.metadata_.containsKey (name))
+    // Read the bundle through the source, which traces the unparcel.
+    if (!this.binder_.getSource ().contains (name))
       throw new NameNotFoundException (name + " not defined in AndroidManifest.xml");
     
-    return (T)this.getValueFromMetadata (name,
-                                         fromResource,
-                                         resourceType,
-                                         typeHint);    
+    return (T)this.binder_.getValue (name,
+                                     fromResource,
+                                     resourceType,
+                                     typeHint);
   }
   
   /**
-   * Load metadata from the manifest and initialize annotated values/methods 
-   * in the target object.
-   * 
-   * @param         target          Instance of object with annotated class
-   * @throws NameNotFoundException
-   * @throws IllegalAccessException 
-   * @throws IllegalArgumentException 
-   * @throws ClassNotFoundException 
-   * @throws InvocationTargetException 
+   * Read an XML resource named by a meta-data element. The parser is closed
+   * when the reader returns.
+   *
+   * @param       name        Name of the meta-data element
+   * @param       reader      Reader for the parser
+   * @return      Value returned by the reader
    */
-	public <T> void initFromMetadata (T target) 
-	    throws NameNotFoundException, IllegalArgumentException, 
-	    IllegalAccessException, ClassNotFoundException, InvocationTargetException
-	{
-    if (this.metadata_ == null)
-      return;
+  public <T> T readXml (String name, ResourceReader <XmlResourceParser, T> reader)
+      throws NameNotFoundException, IOException, XmlPullParserException
+  {
+    boolean tracing = MetadataTrace.isEnabled ();
 
-	  // Get the class, and locate fields with @Metadata.
-	  Field [] fields = target.getClass ().getFields ();
-	  
-	  if (fields.length != 0)
-	  {
-	    // Iterate over each field in the class definition. If we find a
-	    // field with the @Metadata annotation, then we need to load its 
-	    // value from AndroidManifest.xml.
-  	  for (Field field : fields)
-  	  {
-        if (!field.isAnnotationPresent (MetadataProperty.class))
-          continue;
-        
-	      // Get the annotation value, and the target meta-data name.
-	      MetadataProperty annotation = field.getAnnotation (MetadataProperty.class);
-	      String targetName = annotation.name ();
-	      
-	      // If the meta-data name is an empty string, use the field name.
-	      if (targetName.equals (""))
-	        targetName = field.getName ();
-	      
-	      // Make sure that metadata does contain the target name before,
-	      // or there is no need to continue at this point.
-	      if (!this.metadata_.containsKey (targetName))
-	        continue;
-	      
-        // Load the value from the bundle.
-        Object theValue =
-            this.getValueFromMetadata (targetName, 
-                                       annotation.fromResource (),
-                                       annotation.resourceType (),
-                                       field.getType ());
-        
-        // Finally, we can set the value!
-        field.set (target, theValue);            
-  	  }
-	  }
-	  
-	  // Locate all methods with @MetadataMethod
-	  Method [] methods = target.getClass ().getMethods ();
-	  
-	  if (methods.length != 0)
-	  {
-      // Iterate over each field in the class definition. If we find a
-      // field with the @Metadata annotation, then we need to load its 
-      // value from AndroidManifest.xml.
-	    for (Method method : methods)
-	    {
-	      if (!method.isAnnotationPresent (MetadataMethod.class))
-	        continue;
-	      
-	      // Get the annotation value, and the target meta-data name. For methods,
-	      // the target name is required. 
-	      MetadataMethod annotation = method.getAnnotation (MetadataMethod.class);
-        String targetName = annotation.name ();
-        
-        // Make sure that meta-data does contain the target name before,
-        // or there is no need to continue at this point.
-        if (!this.metadata_.containsKey (targetName))
-          continue;
-        
-        // Load the value from the bundle.
-        Object theValue =
-            this.getValueFromMetadata (targetName,
-                                       annotation.fromResource (),
-                                       annotation.resourceType (),
-                                       method.getParameterTypes ()[0]);
-        
-        // Finally, we can set the value!
-        method.invoke (target, theValue);    
-	    }
-	  }
-	}
-	
-	/**
-	 * Load a value from meta-data. The returned value is an Object of the
-	 * correct type. It is the responsibility of the caller to convert the
-	 * returned object to the correct type.
-	 * 
-	 * For classes, the return object is an instance of the class. The class
-	 * therefore must have a default constructor defined. If one is not defined,
-	 * then an exception will be thrown.
-	 * 
-	 * @param      targetName       Name of value in meta-data bundle
-	 * @param      typeInfo         Type information about the target property
-	 * @return
-	 * @throws ClassNotFoundException
-	 * @throws IllegalArgumentException
-	 * @throws IllegalAccessException
-	 * @throws InvocationTargetException
-	 */
-	private Object getValueFromMetadata (String targetName,
-	                                     boolean fromResource,
-	                                     ResourceType rcType,
-	                                     Class <?> typeInfo) 
-	  throws ClassNotFoundException, IllegalArgumentException, 
-	         IllegalAccessException, InvocationTargetException
-	{
-    // Load the value from the bundle.
-    Object theValue = this.metadata_.get (targetName);
+    if (tracing)
+      MetadataTrace.beginSection ("Resources.readXml:" + name);
 
-    // The current value that we are reading from the bundle is actually
-    // a resource id. We therefore need to convert the value to an Integer
-    // so we can load it from the the resources.
-    if (fromResource)
+    try
     {
-      Integer rcid = (Integer)theValue;
-      
-      // Either, we are going to auto-detect the resource type based on the
-      // type of the field, or we are given a hint in the annotation.
-      if (rcType.equals (ResourceType.Auto))
-        theValue = this.getValueFromResource (rcid, typeInfo);
-      else
-        theValue = this.getValueFromResource (rcid, rcType);
+      XmlResourceParser parser = this.context_.getResources ().getXml (this.getResourceId (name));
+
+      try
+      {
+        return reader.read (parser);
+      }
+      finally
+      {
+        parser.close ();
+      }
     }
-    
-    if (typeInfo.equals (Class.class))
+    finally
     {
-      // The value is a Class object. Let's load the class object.
-      ClassLoader classLoader = this.context_.getClassLoader ();
-      theValue = classLoader.loadClass ((String)theValue);
+      if (tracing)
+        MetadataTrace.endSection ();
     }
-    
-    return theValue;
-	}
-	
-	/**
-	 * Get the value from a resource. The value type is determined by
-	 * the field object type.
-	 * 
-	 * @param rcid
-	 * @return
-	 */
-	private Object getValueFromResource (int rcid, Class <?> typeInfo)
-	{
-	  Resources r = this.context_.getResources ();
-	  
-	  if (typeInfo.isAssignableFrom (String.class))
-	    return r.getString (rcid);
-	  else if (typeInfo.isAssignableFrom (int.class) || typeInfo.isAssignableFrom (Integer.class))
-	    return rcid;
-    else if (typeInfo.isAssignableFrom (boolean.class) || typeInfo.isAssignableFrom (Boolean.class))
-      return r.getBoolean (rcid);
-    else if (typeInfo.isAssignableFrom (float.class) || typeInfo.isAssignableFrom (Float.class))
-      return r.getDimension (rcid);
-	  else if (typeInfo.isAssignableFrom (int[].class))
-	    return r.getIntArray (rcid);
-    else if (typeInfo.isAssignableFrom (XmlResourceParser.class))
-      return r.getAnimation (rcid);
-	  else
-	    return null;
-	}
-	
-	/**
-	 * Get the value from a resource. The resource type is determined by
-	 * the rcType parameter.
-	 * 
-	 * @param rcid
-	 * @param rcType
-	 * @return
-	 * @throws IllegalArgumentException
-	 * @throws IllegalAccessException
-	 * @throws InvocationTargetException
-	 */
-  private Object getValueFromResource (int rcid, ResourceType rcType) 
-      throws IllegalArgumentException, IllegalAccessException, InvocationTargetException
-  {
-    Method method = resourceTable_.get (rcType);
-    return method.invoke (this.context_.getResources (), rcid);
   }
-  
-  private static final HashMap <ResourceType, Method> resourceTable_ = new HashMap <ResourceType, Method> ();
-  
-  static
+
+  /**
+   * Read an array resource named by a meta-data element. The typed array is
+   * recycled when the reader returns.
+   *
+   * @param       name        Name of the meta-data element
+   * @param       reader      Reader for the typed array
+   * @return      Value returned by the reader
+   */
+  public <T> T readTypedArray (String name, ResourceReader <TypedArray, T> reader)
+      throws NameNotFoundException, IOException, XmlPullParserException
   {
-    installResourceMethodAccessor (ResourceType.Animation, "getAnimation");
-    installResourceMethodAccessor (ResourceType.Boolean, "getBoolean");
-    installResourceMethodAccessor (ResourceType.Color, "getColor");
-    installResourceMethodAccessor (ResourceType.Dimension, "getDimension");
-    installResourceMethodAccessor (ResourceType.DimensionPixelOffset, "getDimensionPixelOffset");
-    installResourceMethodAccessor (ResourceType.DimensionPixelSize, "getDimensionPixelSize");
-    installResourceMethodAccessor (ResourceType.Drawable, "getDrawable");
-    installResourceMethodAccessor (ResourceType.Id, "getInteger");
-    installResourceMethodAccessor (ResourceType.Integer, "getInteger");
-    installResourceMethodAccessor (ResourceType.IntArray, "getIntArray");
-    installResourceMethodAccessor (ResourceType.String, "getString");
+    boolean tracing = MetadataTrace.isEnabled ();
+
+    if (tracing)
+      MetadataTrace.beginSection ("Resources.readTypedArray:" + name);
+
+    try
+    {
+      TypedArray array = this.context_.getResources ().obtainTypedArray (this.getResourceId (name));
+
+      try
+      {
+        return reader.read (array);
+      }
+      finally
+      {
+        array.recycle ();
+      }
+    }
+    finally
+    {
+      if (tracing)
+        MetadataTrace.endSection ();
+    }
   }
-  
+
   /**
-   * Install the resource access method for the specified resource type.
-   * 
-   * @param rcType
-   * @param methodName
+   * Read a raw resource named by a meta-data element. The stream is closed
+   * when the reader returns.
+   *
+   * @param       name        Name of the meta-data element
+   * @param       reader      Reader for the stream
+   * @return      Value returned by the reader
    */
-  private static void installResourceMethodAccessor (ResourceType rcType, String methodName)
+  public <T> T readRaw (String name, ResourceReader <InputStream, T> reader)
+      throws NameNotFoundException, IOException, XmlPullParserException
   {
-    Class <Resources> clazz = Resources.class;
-    
+    boolean tracing = MetadataTrace.isEnabled ();
+
+    if (tracing)
+      MetadataTrace.beginSection ("Resources.readRaw:" + name);
+
     try
     {
-      resourceTable_.put (rcType, clazz.getMethod (methodName, int.class));
+      InputStream stream = this.context_.getResources ().openRawResource (this.getResourceId (name));
+
+      try
+      {
+        return reader.read (stream);
+      }
+      finally
+      {
+        stream.close ();
+      }
+    }
+    finally
+    {
+      if (tracing)
+        MetadataTrace.endSection ();
     }
-    catch (SecurityException e)
+  }
+
+  /**
+   * Map a raw resource named by a meta-data element into memory. The contents
+   * of the resource are not copied onto the heap. The resource must be stored
+   * uncompressed in the package.
+   *
+   * @param       name        Name of the meta-data element
+   * @return      Read-only view of the resource
+   */
+  public ByteBuffer mapRaw (String name)
+      throws NameNotFoundException, IOException
+  {
+    boolean tracing = MetadataTrace.isEnabled ();
+
+    if (tracing)
+      MetadataTrace.beginSection ("Resources.mapRaw:" + name);
+
+    try
     {
-      Log.w (TAG, e.getMessage (), e);
+      return AndroidResourceResolver.mapRawResource (this.context_.getResources (), this.getResourceId (name));
     }
-    catch (NoSuchMethodException e)
+    finally
     {
-      Log.w (TAG, e.getMessage (), e);
-    } 
+      if (tracing)
+        MetadataTrace.endSection ();
+    }
+  }
+
+  /**
+   * Get the resource id of a meta-data element.
+   */
+  private int getResourceId (String name)
+      throws NameNotFoundException
+  {
+    MetadataSource source = this.binder_.getSource ();
+
+    if (!source.contains (name))
+      throw new NameNotFoundException (name + " not defined in AndroidManifest.xml");
+
+    return (Integer)source.get (name);
+  }
+
+  /**
+   * Discover the components registered in the meta-data under a prefix. Each
+   * registrar names a ComponentInitializer class, which receives the Context
+   * of this object. Call start () on the result to initialize the components.
+   *
+   * @param       prefix      Prefix of the registrar names
+   * @param       executor    Executor that runs the initializers
+   * @return      The discovered components
+   * @throws ClassNotFoundException
+   */
+  public ComponentDiscovery <Context> discoverComponents (String prefix, Executor executor)
+      throws ClassNotFoundException
+  {
+    return new ComponentDiscovery<> (this.binder_.getSource (),
+                                     prefix,
+                                     this.context_.getClassLoader (),
+                                     this.context_,
+                                     executor);
+  }
+
+  /**
+   * Load metadata from the manifest and initialize annotated values/methods 
+   * in the target object.
+   * 
+   * @param         target          Instance of object with annotated class
+   * @throws NameNotFoundException
+   * @throws IllegalAccessException 
+   * @throws IllegalArgumentException 
+   * @throws ClassNotFoundException 
+   * @throws InvocationTargetException 
+   */
+	public <T> void initFromMetadata (T target) 
+	    throws NameNotFoundException, IllegalArgumentException, 
+	    IllegalAccessException, ClassNotFoundException, InvocationTargetException
+	{
+    if (this.metadata_ == null)
+      return;
+
+    this.binder_.bind (target);
   }
 }
\ No newline at end of file
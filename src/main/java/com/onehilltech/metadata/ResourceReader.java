@@ -0,0 +1,36 @@
+/**
+ * Copyright (C) 2013, James H. Hill
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.onehilltech.metadata;
+
+import org.xmlpull.v1.XmlPullParserException;
+
+import java.io.IOException;
+
+/**
+ * Callback that reads a resource whose lifecycle is managed by the library,
+ * such as an XmlResourceParser, a TypedArray, or a raw InputStream. The
+ * resource is only valid for the duration of the call, and must not be
+ * stored by the reader.
+ *
+ * @param <R>       Type of the resource
+ * @param <T>       Type of the value read from the resource
+ */
+public interface ResourceReader <R, T>
+{
+  T read (R resource) throws IOException, XmlPullParserException;
+}